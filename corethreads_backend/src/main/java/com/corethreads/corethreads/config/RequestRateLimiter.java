@@ -0,0 +1,153 @@
+package com.corethreads.corethreads.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets for the API, one per (route class, client). A client is the signed-in
+ * customer when there is one, else the remote address. Expensive routes (search, checkout) draw
+ * from their own, smaller budgets so they cannot starve ordinary browsing and vice versa.
+ *
+ * Each bucket is a single AtomicLong holding its "theoretical arrival time" (GCRA, the lock-free
+ * formulation of a token bucket): a request advances it by one emission interval and is refused
+ * when that would run more than a full burst ahead of now. A bucket whose time has passed is full,
+ * so dropping it is indistinguishable from keeping it; the sweep does exactly that.
+ */
+@Component
+public class RequestRateLimiter {
+
+    public enum RouteClass { DEFAULT, SEARCH, CHECKOUT }
+
+    public record Decision(boolean allowed, int limit, int remaining, long resetEpochMillis, long retryAfterSeconds) {}
+
+    private record Budget(int limit, long intervalNanos, long burstNanos) {
+        static Budget of(int limit, long windowSeconds) {
+            long interval = TimeUnit.SECONDS.toNanos(windowSeconds) / Math.max(1, limit);
+            return new Budget(limit, interval, interval * limit);
+        }
+    }
+
+    private record Key(RouteClass routeClass, Object client) {}
+
+    // Shared client key for callers without a live bucket once the key limit is reached
+    private static final Object OVERFLOW = "overflow";
+
+    private final Map<RouteClass, Budget> budgets = new EnumMap<>(RouteClass.class);
+    private final Map<RouteClass, Counter> rejected = new EnumMap<>(RouteClass.class);
+    private final ConcurrentHashMap<Key, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int maxKeys;
+    private volatile long lastSweep = System.nanoTime();
+
+    public RequestRateLimiter(MeterRegistry meterRegistry,
+                              @Value("${ratelimit.enabled:true}") boolean enabled,
+                              @Value("${ratelimit.max-keys:100000}") int maxKeys,
+                              @Value("${ratelimit.default.limit:600}") int defaultLimit,
+                              @Value("${ratelimit.default.window-seconds:60}") long defaultWindow,
+                              @Value("${ratelimit.search.limit:60}") int searchLimit,
+                              @Value("${ratelimit.search.window-seconds:60}") long searchWindow,
+                              @Value("${ratelimit.checkout.limit:10}") int checkoutLimit,
+                              @Value("${ratelimit.checkout.window-seconds:60}") long checkoutWindow) {
+        this.enabled = enabled;
+        this.maxKeys = maxKeys;
+        budgets.put(RouteClass.DEFAULT, Budget.of(defaultLimit, defaultWindow));
+        budgets.put(RouteClass.SEARCH, Budget.of(searchLimit, searchWindow));
+        budgets.put(RouteClass.CHECKOUT, Budget.of(checkoutLimit, checkoutWindow));
+        for (RouteClass rc : RouteClass.values()) {
+            rejected.put(rc, Counter.builder("ratelimit.rejected")
+                    .tag("route", rc.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("ratelimit.active.keys", buckets, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Route class for a request, or null for requests that are not limited
+     * (preflights, images and anything outside /api).
+     */
+    public static RouteClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (!path.startsWith("/api/") || path.startsWith("/api/images/") || "OPTIONS".equals(request.getMethod())) {
+            return null;
+        }
+        if (path.startsWith("/api/orders/checkout")) {
+            return RouteClass.CHECKOUT;
+        }
+        if (path.startsWith("/api/products/search") || path.startsWith("/api/products/facets")) {
+            return RouteClass.SEARCH;
+        }
+        return RouteClass.DEFAULT;
+    }
+
+    // --- Takes one token for the request's client, or refuses ---
+    public Decision acquire(RouteClass routeClass, HttpServletRequest request) {
+        Budget budget = budgets.get(routeClass);
+        if (!enabled) {
+            return new Decision(true, budget.limit(), budget.limit(), System.currentTimeMillis(), 0);
+        }
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.computeIfAbsent(keyOf(routeClass, request, now), k -> new AtomicLong(now));
+
+        while (true) {
+            long tat = bucket.get();
+            // nanoTime may be negative, so compare by difference
+            long next = (tat - now > 0 ? tat : now) + budget.intervalNanos();
+            long ahead = next - now;
+            if (ahead > budget.burstNanos()) {
+                rejected.get(routeClass).increment();
+                long wait = ahead - budget.burstNanos();
+                return new Decision(false, budget.limit(), 0, resetAt(tat, now),
+                        Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1)));
+            }
+            if (bucket.compareAndSet(tat, next)) {
+                int remaining = (int) ((budget.burstNanos() - ahead) / budget.intervalNanos());
+                return new Decision(true, budget.limit(), remaining, resetAt(next, now), 0);
+            }
+        }
+    }
+
+    // Buckets that have refilled completely carry no state worth keeping
+    @Scheduled(fixedDelayString = "${ratelimit.sweep-interval-ms:30000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        lastSweep = now;
+        buckets.values().removeIf(tat -> tat.get() - now <= 0);
+    }
+
+    // When the bucket is back to a full burst, as wall-clock epoch millis
+    private static long resetAt(long tat, long now) {
+        return System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(Math.max(0, tat - now));
+    }
+
+    private Key keyOf(RouteClass routeClass, HttpServletRequest request, long now) {
+        HttpSession session = request.getSession(false);
+        Object customerId = session != null ? session.getAttribute("customerId") : null;
+        if (customerId != null) {
+            return new Key(routeClass, customerId);
+        }
+        Key key = new Key(routeClass, request.getRemoteAddr());
+        if (buckets.size() >= maxKeys && !buckets.containsKey(key)) {
+            // Flooded with distinct addresses: sweep at most once a second, and if that frees nothing,
+            // clients without a live bucket share one instead of growing the map further
+            if (now - lastSweep > TimeUnit.SECONDS.toNanos(1)) {
+                evictIdle();
+            }
+            if (buckets.size() >= maxKeys) {
+                return new Key(routeClass, OVERFLOW);
+            }
+        }
+        return key;
+    }
+}
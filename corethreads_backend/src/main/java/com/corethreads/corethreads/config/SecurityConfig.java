@@ -1,6 +1,8 @@
 package com.corethreads.corethreads.config;
 
+import com.corethreads.corethreads.util.InputValidator;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.cors.CorsConfiguration;
@@ -24,6 +26,31 @@ import java.util.Arrays;
 @Configuration
 public class SecurityConfig implements WebMvcConfigurer {
 
+    private static final String NO_STORE = "no-store, no-cache, must-revalidate, max-age=0";
+    // Storable, but revalidated (ETag / Last-Modified) on every use
+    private static final String REVALIDATE = "public, no-cache";
+
+    private static final long MAX_BODY_BYTES = 10 * 1024 * 1024;
+    // Bulk product import streams its body in chunks, so it gets its own cap (import.max-bytes)
+    private static final String IMPORT_PATH = "/api/sellers/products/import";
+
+    /**
+     * Per-route cache policy. Everything except public GETs of the catalogue and images stays no-store,
+     * which covers every session-bound endpoint. Successful reads of uploaded images are upgraded to
+     * immutable by ImageController, so a 404 is never cached for a year.
+     */
+    static String cacheControlFor(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return NO_STORE;
+        }
+        String path = request.getRequestURI();
+        if (path.startsWith("/images/") || path.startsWith("/api/images/") || path.startsWith("/api/products")) {
+            return REVALIDATE;
+        }
+        return NO_STORE;
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -42,12 +69,13 @@ public class SecurityConfig implements WebMvcConfigurer {
 
         // 🔒 SECURITY: Allow necessary headers for session-based auth
         configuration.setAllowedHeaders(Arrays.asList(
-                "Content-Type", "Authorization", "X-CSRF-TOKEN", "Cache-Control", "Pragma"
+                "Content-Type", "Authorization", "X-CSRF-TOKEN", "Cache-Control", "Pragma", "Idempotency-Key", "If-None-Match"
         ));
 
         // Expose only necessary headers
         configuration.setExposedHeaders(Arrays.asList(
-                "Content-Type", "X-Total-Count"
+                "Content-Type", "X-Total-Count", "X-Next-Cursor", "Idempotent-Replayed", "ETag",
+                "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-RateLimit-Reset", "Retry-After"
         ));
 
         configuration.setAllowCredentials(true);
@@ -117,10 +145,13 @@ public class SecurityConfig implements WebMvcConfigurer {
                 // 🔒 SECURITY: Hide server information (CWE-200)
                 httpResponse.setHeader("Server", "");
 
-                // 🔒 SECURITY: Prevent cache of sensitive data
-                httpResponse.setHeader("Cache-Control", "no-store, no-cache, must-revalidate, max-age=0");
-                httpResponse.setHeader("Pragma", "no-cache");
-                httpResponse.setHeader("Expires", "0");
+                // 🔒 SECURITY: Prevent cache of sensitive data; only public catalogue reads and images may be stored
+                String cacheControl = cacheControlFor(httpRequest);
+                httpResponse.setHeader("Cache-Control", cacheControl);
+                if (cacheControl == NO_STORE) {
+                    httpResponse.setHeader("Pragma", "no-cache");
+                    httpResponse.setHeader("Expires", "0");
+                }
 
                 chain.doFilter(request, response);
             }
@@ -136,7 +167,7 @@ public class SecurityConfig implements WebMvcConfigurer {
      * Validates and sanitizes incoming requests
      */
     @Bean
-    public FilterRegistrationBean<Filter> inputValidationFilter() {
+    public FilterRegistrationBean<Filter> inputValidationFilter(@Value("${import.max-bytes:268435456}") long importMaxBytes) {
         Filter filter = new Filter() {
             @Override
             public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
@@ -147,9 +178,10 @@ public class SecurityConfig implements WebMvcConfigurer {
                 // 🔒 SECURITY: Check for suspicious request patterns
                 String contentType = httpRequest.getContentType();
                 
-                // Validate content length
+                // Validate content length: 10MB, except the bulk import which has its own cap
                 long contentLength = httpRequest.getContentLengthLong();
-                if (contentLength > 10 * 1024 * 1024) { // 10MB limit
+                long maxBytes = IMPORT_PATH.equals(httpRequest.getRequestURI()) ? importMaxBytes : MAX_BODY_BYTES;
+                if (contentLength > maxBytes) {
                     httpResponse.sendError(413, // HTTP 413 Payload Too Large
                             "Request payload exceeds maximum size");
                     return;
@@ -157,7 +189,7 @@ public class SecurityConfig implements WebMvcConfigurer {
 
                 // 🔒 SECURITY: Detect potential SQL injection in parameters
                 String queryString = httpRequest.getQueryString();
-                if (queryString != null && containsSuspiciousPatterns(queryString)) {
+                if (InputValidator.containsSuspiciousQuery(queryString)) {
                     httpResponse.sendError(HttpServletResponse.SC_BAD_REQUEST, 
                             "Invalid request parameters");
                     return;
@@ -165,36 +197,6 @@ public class SecurityConfig implements WebMvcConfigurer {
 
                 chain.doFilter(request, response);
             }
-
-            /**
-             * Detects common injection attack patterns
-             */
-            private boolean containsSuspiciousPatterns(String input) {
-                String lowerInput = input.toLowerCase();
-                
-                // SQL injection patterns
-                if (lowerInput.contains("union") || 
-                    lowerInput.contains("select") ||
-                    lowerInput.contains("insert") ||
-                    lowerInput.contains("delete") ||
-                    lowerInput.contains("drop") ||
-                    lowerInput.contains("exec") ||
-                    lowerInput.contains("--") ||
-                    lowerInput.contains(";") ||
-                    lowerInput.contains("'")) {
-                    return true;
-                }
-                
-                // XSS patterns
-                if (lowerInput.contains("<script") ||
-                    lowerInput.contains("javascript:") ||
-                    lowerInput.contains("onerror=") ||
-                    lowerInput.contains("onclick=")) {
-                    return true;
-                }
-                
-                return false;
-            }
         };
         
         FilterRegistrationBean<Filter> bean = new FilterRegistrationBean<>(filter);
@@ -203,21 +205,33 @@ public class SecurityConfig implements WebMvcConfigurer {
     }
 
     /**
-     * 🔒 Rate Limiting Headers Filter
-     * Helps prevent abuse and DoS attacks
+     * 🔒 Rate Limiting Filter
+     * Enforces per-client token buckets (see RequestRateLimiter) and reports the caller's budget
      */
     @Bean
-    public FilterRegistrationBean<Filter> rateLimitingHeadersFilter() {
+    public FilterRegistrationBean<Filter> rateLimitingFilter(RequestRateLimiter rateLimiter) {
         Filter filter = new Filter() {
             @Override
             public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
                     throws IOException, ServletException {
+                HttpServletRequest httpRequest = (HttpServletRequest) request;
                 HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-                // 🔒 SECURITY: Add rate limiting headers
-                httpResponse.setHeader("X-RateLimit-Limit", "1000");
-                httpResponse.setHeader("X-RateLimit-Remaining", "999");
-                httpResponse.setHeader("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() + 3600000));
+                RequestRateLimiter.RouteClass routeClass = RequestRateLimiter.classify(httpRequest);
+                if (routeClass == null) {
+                    chain.doFilter(request, response);
+                    return;
+                }
+
+                RequestRateLimiter.Decision decision = rateLimiter.acquire(routeClass, httpRequest);
+                httpResponse.setHeader("X-RateLimit-Limit", String.valueOf(decision.limit()));
+                httpResponse.setHeader("X-RateLimit-Remaining", String.valueOf(decision.remaining()));
+                httpResponse.setHeader("X-RateLimit-Reset", String.valueOf(decision.resetEpochMillis()));
+                if (!decision.allowed()) {
+                    httpResponse.setHeader("Retry-After", String.valueOf(decision.retryAfterSeconds()));
+                    httpResponse.sendError(429, "Too many requests"); // HTTP 429 Too Many Requests
+                    return;
+                }
 
                 chain.doFilter(request, response);
             }
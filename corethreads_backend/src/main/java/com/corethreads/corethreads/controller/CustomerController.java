@@ -2,7 +2,10 @@ package com.corethreads.corethreads.controller;
 
 import com.corethreads.corethreads.entity.Customer;
 import com.corethreads.corethreads.service.CustomerService;
+import com.corethreads.corethreads.service.LoginAttemptTracker;
 import com.corethreads.corethreads.util.InputValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpHeaders;
@@ -20,9 +23,14 @@ import java.util.Map;
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"}, allowCredentials = "true")
 public class CustomerController {
 
+    private static final Logger log = LoggerFactory.getLogger(CustomerController.class);
+
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private LoginAttemptTracker loginAttemptTracker;
+
     @PostMapping("/register")
     public ResponseEntity<?> registerCustomer(@RequestBody Customer customer, HttpServletRequest request) {
         try {
@@ -93,7 +101,7 @@ public class CustomerController {
             session.setAttribute("customerId", registeredCustomer.getCustomerId());
             session.setAttribute("username", registeredCustomer.getUsername());
             session.setAttribute("role", "CUSTOMER"); // Set default role
-            System.out.println("✅ Registration successful - customerId = " + registeredCustomer.getCustomerId());
+            log.info("Registration successful - customerId = {}", registeredCustomer.getCustomerId());
             
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body(Map.of(
@@ -109,7 +117,7 @@ public class CustomerController {
                     ));
         } catch (InputValidator.SecurityException ex) {
             // 🔒 SECURITY: Log security violations
-            System.err.println("🚨 Security violation in registration: " + ex.getMessage());
+            log.warn("Security violation in registration: {}", ex.getMessage());
             return ResponseEntity.badRequest()
                     .body(Map.of("error", "Invalid input provided"));
         } catch (ResponseStatusException ex) {
@@ -126,54 +134,70 @@ public class CustomerController {
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
         try {
-            System.out.println("=== LOGIN ENDPOINT DEBUG ===");
-            System.out.println("Username from request: " + request.username());
-            System.out.println("Password provided: " + (request.password() != null && !request.password().isEmpty() ? "YES" : "NO"));
+            log.debug("Username from request: {}", request.username());
             
             // 🔒 SECURITY: Validate and sanitize input to prevent injection attacks
             if (request.username() == null || request.username().isBlank()) {
-                System.out.println("❌ Username is blank");
+                log.debug("Username is blank");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Invalid credentials"));
             }
             
             if (request.password() == null || request.password().isBlank()) {
-                System.out.println("❌ Password is blank");
+                log.debug("Password is blank");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Invalid credentials"));
             }
             
             // 🔒 SECURITY: Validate input length
             if (request.username().length() > 255 || request.password().length() > 255) {
-                System.out.println("❌ Input exceeds maximum length");
+                log.debug("Input exceeds maximum length");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Invalid credentials"));
             }
             
             // 🔒 SECURITY: Detect potential SQL injection attempts
             if (InputValidator.containsSQLInjectionAttempt(request.username())) {
-                System.err.println("🚨 SQL Injection attempt detected in username");
+                log.warn("SQL Injection attempt detected in username");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Invalid credentials"));
             }
             
             // 🔒 SECURITY: Detect potential XSS attempts
             if (InputValidator.containsXSSAttempt(request.username())) {
-                System.err.println("🚨 XSS attempt detected in username");
+                log.warn("XSS attempt detected in username");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Invalid credentials"));
             }
 
-            System.out.println("✓ Input validation passed");
-            Customer customer = customerService.login(request.username(), request.password());
-            System.out.println("✓ Customer authenticated: " + customer.getUsername());
+            log.debug("Input validation passed");
+
+            // Repeat offenders are refused before the customer lookup and the BCrypt compare
+            if (loginAttemptTracker.isBlocked(request.username(), httpRequest.getRemoteAddr())) {
+                log.warn("Login throttled after repeated failures");
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginAttemptTracker.retryAfterSeconds()))
+                        .body(Map.of("error", "Too many failed login attempts, try again later"));
+            }
+
+            Customer customer;
+            try {
+                customer = customerService.login(request.username(), request.password());
+            } catch (ResponseStatusException ex) {
+                if (ex.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                    loginAttemptTracker.recordFailure(request.username(), httpRequest.getRemoteAddr());
+                }
+                throw ex;
+            }
+            loginAttemptTracker.recordSuccess(request.username(), httpRequest.getRemoteAddr());
+            log.debug("Customer authenticated: {}", customer.getUsername());
             
             // ✅ Create server-side session after successful login
             HttpSession session = httpRequest.getSession(true);
             session.setAttribute("customerId", customer.getCustomerId());
             session.setAttribute("username", customer.getUsername());
             session.setAttribute("role", customer.getRole().toString()); // Store role in session
-            System.out.println("DEBUG: Login successful - customerId = " + customer.getCustomerId() + ", username = " + customer.getUsername() + ", role = " + customer.getRole());
+            log.info("Login successful - customerId = {}, username = {}, role = {}", customer.getCustomerId(), customer.getUsername(), customer.getRole());
             
             // Return user data without exposing sensitive information
             Map<String, Object> response = new java.util.HashMap<>();
@@ -187,17 +211,17 @@ public class CustomerController {
             response.put("phoneNumber", customer.getPhoneNumber());
             response.put("role", customer.getRole().toString());
             response.put("message", "Login successful");
-            System.out.println("✓ Response ready: " + response);
             return ResponseEntity.ok(response);
         } catch (ResponseStatusException ex) {
-            System.out.println("❌ ResponseStatusException: " + ex.getMessage());
-            ex.printStackTrace();
+            if (ex.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                return tooManyRequests(ex);
+            }
+            log.debug("Login rejected: {}", ex.getReason());
             // ✅ Generic error message prevents account enumeration attacks
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Invalid credentials"));
         } catch (Exception ex) {
-            System.out.println("❌ Exception during login: " + ex.getMessage());
-            ex.printStackTrace();
+            log.error("Exception during login", ex);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "An error occurred during login"));
         }
@@ -296,12 +320,12 @@ public class CustomerController {
     @GetMapping("/validate-admin-session")
     public ResponseEntity<?> validateAdminSession(HttpServletRequest request) {
         try {
-            System.out.println("🔐 Validating admin session...");
+            log.debug("Validating admin session...");
             
             // Check if a valid session exists
             HttpSession session = request.getSession(false);
             if (session == null) {
-                System.out.println("❌ No session found");
+                log.debug("No session found");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("valid", false, "message", "No active session"));
             }
@@ -311,23 +335,23 @@ public class CustomerController {
             String username = (String) session.getAttribute("username");
             String role = (String) session.getAttribute("role");
             
-            System.out.println("Session attributes - customerId: " + customerId + ", username: " + username + ", role: " + role);
+            log.debug("Session attributes - customerId: {}, username: {}, role: {}", customerId, username, role);
             
             // Validate session has required attributes
             if (customerId == null) {
-                System.out.println("❌ No customerId in session");
+                log.debug("No customerId in session");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("valid", false, "message", "Invalid session"));
             }
             
             // ✅ CRITICAL SECURITY CHECK: Verify user has ADMIN role
             if (role == null || !role.equals("ADMIN")) {
-                System.out.println("❌ User does not have ADMIN role. Current role: " + role);
+                log.debug("User does not have ADMIN role. Current role: {}", role);
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("valid", false, "message", "Admin privileges required"));
             }
             
-            System.out.println("✅ Admin session is valid");
+            log.debug("Admin session is valid");
             return ResponseEntity.ok(Map.of(
                     "valid", true, 
                     "customerId", customerId,
@@ -336,8 +360,7 @@ public class CustomerController {
                     "message", "Admin session is active"
             ));
         } catch (Exception e) {
-            System.out.println("❌ Admin session validation error: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Admin session validation error", e);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("valid", false, "message", "Admin session validation failed"));
         }
@@ -481,24 +504,24 @@ public class CustomerController {
 
             // 🔒 SECURITY: Detect SQL injection attempts in password fields (CWE-89)
             if (InputValidator.containsSQLInjectionAttempt(oldPassword)) {
-                System.err.println("🚨 SQL Injection attempt detected in old password field");
+                log.warn("SQL Injection attempt detected in old password field");
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "Invalid password format"));
             }
             if (InputValidator.containsSQLInjectionAttempt(newPassword)) {
-                System.err.println("🚨 SQL Injection attempt detected in new password field");
+                log.warn("SQL Injection attempt detected in new password field");
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "Invalid password format"));
             }
 
             // 🔒 SECURITY: Detect XSS attempts in password fields (CWE-79)
             if (InputValidator.containsXSSAttempt(oldPassword)) {
-                System.err.println("🚨 XSS attempt detected in old password field");
+                log.warn("XSS attempt detected in old password field");
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "Invalid password format"));
             }
             if (InputValidator.containsXSSAttempt(newPassword)) {
-                System.err.println("🚨 XSS attempt detected in new password field");
+                log.warn("XSS attempt detected in new password field");
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "Invalid password format"));
             }
@@ -530,7 +553,7 @@ public class CustomerController {
             // Verify old password and change to new password
             Customer customer = customerService.changePassword(customerId, oldPassword, newPassword);
             
-            System.out.println("✅ Password changed successfully for customerId: " + customerId);
+            log.info("Password changed successfully for customerId: {}", customerId);
             
             return ResponseEntity.ok(Map.of(
                     "message", "Password changed successfully",
@@ -538,17 +561,26 @@ public class CustomerController {
                     "username", customer.getUsername()
             ));
         } catch (ResponseStatusException ex) {
+            if (ex.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                return tooManyRequests(ex);
+            }
             // Return 401 if old password is incorrect (generic message prevents user enumeration)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Current password is incorrect"));
         } catch (Exception ex) {
-            System.err.println("❌ Error changing password: " + ex.getMessage());
-            ex.printStackTrace();
+            log.error("Error changing password", ex);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Failed to change password"));
         }
     }
 
+    // Password hashing pool is saturated; the client should back off briefly
+    private ResponseEntity<?> tooManyRequests(ResponseStatusException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getReason()));
+    }
+
     /**
      * ✅ SECURITY FIX: Sanitizes password inputs to prevent injection attacks
      * Removes null characters and control characters
@@ -1,48 +1,167 @@
 package com.corethreads.corethreads.controller;
 
+import com.corethreads.corethreads.service.ImageStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
+/**
+ * Serves images from the on-disk {@link ImageStore}, falling back to the bundled static/images folder
+ * for seeded and legacy files. Files are sent with Tomcat's sendfile when available (or
+ * FileChannel.transferTo otherwise), so image bytes never pass through the heap. Single byte
+ * ranges are answered with 206.
+ */
 @RestController
-@RequestMapping("/api/images")
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"}) // ✅ FIXED: Restricted CORS
 public class ImageController {
 
-    @GetMapping("/{filename}")
-    public ResponseEntity<Resource> getImage(@PathVariable String filename) throws IOException {
+    // Legacy uploads were written once as product_<id>_<timestamp>.<ext> and never overwritten
+    private static final Pattern LEGACY_UPLOAD = Pattern.compile("^product_\\d+_\\d+\\.[A-Za-z0-9]+$");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ImageStore imageStore;
+
+    public ImageController(ImageStore imageStore) {
+        this.imageStore = imageStore;
+    }
+
+    @GetMapping({"/api/images/{filename}", "/images/{filename}"})
+    public void getImage(@PathVariable String filename, ServletWebRequest webRequest,
+                         HttpServletResponse response) throws IOException {
         // ✅ SECURITY FIX: Validate filename to prevent directory traversal (CWE-22)
         if (filename == null || filename.isEmpty()) {
-            return ResponseEntity.badRequest().build();
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
         }
-        
+
         // Remove path traversal attempts
         filename = filename.replace("..", "").replace("/", "").replace("\\", "");
-        
+
         // Only allow safe filename characters
         if (!filename.matches("^[a-zA-Z0-9._-]+$")) {
-            return ResponseEntity.badRequest().build();
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        Optional<Path> stored = imageStore.resolve(filename);
+        Resource bundled = stored.isPresent() ? null : new ClassPathResource("static/images/" + filename);
+        if (bundled != null && !bundled.exists()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
         }
-        
-        // Serve files from classpath static/images
-        Resource resource = new ClassPathResource("static/images/" + filename);
-        if (!resource.exists()) {
-            return ResponseEntity.notFound().build();
+        // Bundled images are plain files when running from an exploded build, but not inside a jar
+        Path file = stored.isPresent() ? stored.get() : bundled.isFile() ? bundled.getFile().toPath() : null;
+        long length = file != null ? Files.size(file) : bundled.contentLength();
+        long lastModified = file != null ? Files.getLastModifiedTime(file).toMillis() : bundled.lastModified();
+
+        // Conditional GET: size + mtime identify the file version without reading it
+        String etag = Long.toHexString(length) + "-" + Long.toHexString(lastModified);
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setContentType(ImageStore.contentTypeOf(filename));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=" + filename);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (ImageStore.isStoredName(filename) || LEGACY_UPLOAD.matcher(filename).matches()) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL,
+                    CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue());
         }
 
-        String contentType = filename.toLowerCase().endsWith(".png") ? MediaType.IMAGE_PNG_VALUE
-                : filename.toLowerCase().endsWith(".jpg") || filename.toLowerCase().endsWith(".jpeg") ? MediaType.IMAGE_JPEG_VALUE
-                : filename.toLowerCase().endsWith(".gif") ? MediaType.IMAGE_GIF_VALUE
-                : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        long start = 0;
+        long end = length - 1;
+        HttpServletRequest request = webRequest.getRequest();
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (rangeHeader != null && (ifRange == null || ifRange.equals("\"" + etag + "\""))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException ex) {
+                ranges = List.of();
+            }
+            // Multi-range requests are answered with the whole file, which RFC 9110 allows
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                try {
+                    start = range.getRangeStart(length);
+                    end = range.getRangeEnd(length);
+                    if (start >= length) {
+                        throw new IllegalArgumentException("Range starts past end of file");
+                    }
+                } catch (IllegalArgumentException ex) {
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = Math.max(0, end - start + 1);
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=" + filename)
-                .contentType(MediaType.parseMediaType(contentType))
-                .body(resource);
+        if (file == null) {
+            try (InputStream in = bundled.getInputStream()) {
+                in.skipNBytes(start);
+                copy(in, response.getOutputStream(), count);
+            }
+        } else if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file straight from the page cache once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+        } else {
+            try (FileChannel channel = FileChannel.open(file)) {
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                long position = start;
+                while (position <= end) {
+                    long sent = channel.transferTo(position, end + 1 - position, out);
+                    if (sent == 0) {
+                        // The file shrank under us: abort rather than spin or send short of Content-Length
+                        throw new EOFException("Image truncated at byte " + position + " of " + (end + 1));
+                    }
+                    position += sent;
+                }
+            }
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out, long count) throws IOException {
+        byte[] buffer = new byte[8192];
+        long remaining = count;
+        int read;
+        while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) > 0) {
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,17 @@
 package com.corethreads.corethreads.controller;
 
 import com.corethreads.corethreads.entity.Order;
+import com.corethreads.corethreads.service.CheckoutIdempotencyStore;
 import com.corethreads.corethreads.service.OrderService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.Map;
@@ -17,10 +22,14 @@ import java.util.Map;
 @CrossOrigin(origins = {"http://localhost:5173"}, allowCredentials = "true")
 public class OrderController {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderController.class);
+
     private final OrderService orderService;
+    private final CheckoutIdempotencyStore idempotencyStore;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, CheckoutIdempotencyStore idempotencyStore) {
         this.orderService = orderService;
+        this.idempotencyStore = idempotencyStore;
     }
 
     @PostMapping
@@ -75,10 +84,10 @@ public class OrderController {
     @PostMapping("/checkout")
     public ResponseEntity<?> checkout(@RequestBody Map<String, Object> payload, HttpServletRequest httpRequest) {
         try {
-            System.out.println("[OrderController] Checkout request received");
+            log.debug("Checkout request received");
             HttpSession session = httpRequest.getSession(false);
             if (session == null || session.getAttribute("customerId") == null) {
-                System.out.println("[OrderController] No session or customerId");
+                log.debug("No session or customerId");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Not authenticated"));
             }
@@ -92,30 +101,30 @@ public class OrderController {
                 try {
                     customerId = Long.valueOf((String) cidObj);
                 } catch (NumberFormatException nfe) {
-                    System.out.println("[OrderController] Invalid customerId format: " + cidObj);
+                    log.debug("Invalid customerId format: {}", cidObj);
                     return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                             .body(Map.of("error", "Invalid session identifier"));
                 }
             }
             if (customerId == null) {
-                System.out.println("[OrderController] customerId is null");
+                log.debug("customerId is null");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("error", "Not authenticated"));
             }
 
-            System.out.println("[OrderController] Customer ID: " + customerId);
+            log.debug("Customer ID: {}", customerId);
 
                 if (payload == null || payload.get("items") == null) {
-                System.out.println("[OrderController] Empty payload or items");
+                log.debug("Empty payload or items");
                 return ResponseEntity.badRequest().body(Map.of("error", "No items to checkout"));
             }
             // Parse items from a generic payload
             Object rawItems = payload.get("items");
             if (!(rawItems instanceof List<?> rawList) || rawList.isEmpty()) {
-                System.out.println("[OrderController] Items list is invalid or empty");
+                log.debug("Items list is invalid or empty");
                 return ResponseEntity.badRequest().body(Map.of("error", "No valid items to checkout"));
             }
-            System.out.println("[OrderController] Items count: " + rawList.size());
+            log.debug("Items count: {}", rawList.size());
 
             // Convert payload items to OrderService.CheckoutItem (avoid generic inference issues)
             List<OrderService.CheckoutItem> serviceItems = new java.util.ArrayList<>();
@@ -139,11 +148,15 @@ public class OrderController {
                 serviceItems.add(new OrderService.CheckoutItem(pid, size, color, qty));
             }
 
-            // Call service to process checkout
-            OrderService.CheckoutResult result = orderService.processCheckout(customerId, serviceItems);
+            // Call service to process checkout; a retry with the same Idempotency-Key replays the first result
+            final Long buyerId = customerId;
+            CheckoutIdempotencyStore.Outcome outcome = idempotencyStore.execute(buyerId,
+                    httpRequest.getHeader("Idempotency-Key"), serviceItems,
+                    () -> orderService.processCheckout(buyerId, serviceItems));
+            OrderService.CheckoutResult result = outcome.result();
 
             if (!result.failures().isEmpty()) {
-                System.out.println("[OrderController] Checkout validation failures");
+                log.debug("Checkout validation failures");
                 // If failure is due to insufficient balance, tailor the message
                 String errorMsg = "Some items failed validation";
                 try {
@@ -153,14 +166,16 @@ public class OrderController {
                         errorMsg = "Insufficient balance";
                     }
                 } catch (Exception ignored) {}
-                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .header("Idempotent-Replayed", String.valueOf(outcome.replayed()))
+                        .body(Map.of(
                         "error", errorMsg,
                         "failures", result.failures()
                 ));
             }
 
             Order order = result.order();
-            System.out.println("[OrderController] Order created successfully: " + order.getOrderNumber());
+            log.debug("Order created successfully: {}", order.getOrderNumber());
             
                 Map<String, Object> response = Map.of(
                     "orderId", order.getOrderId(),
@@ -169,10 +184,17 @@ public class OrderController {
                     "totalAmount", order.getTotalAmount(),
                     "remainingBalance", order.getCustomer() != null ? order.getCustomer().getBalance() : null
                 );
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header("Idempotent-Replayed", String.valueOf(outcome.replayed()))
+                    .body(response);
+        } catch (ResponseStatusException ex) {
+            return ResponseEntity.status(ex.getStatusCode()).body(Map.of("error", ex.getReason()));
+        } catch (ConcurrencyFailureException ex) {
+            // Still conflicting after the service's retries; nothing was committed
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Checkout is busy, please try again"));
         } catch (Exception ex) {
-            System.err.println("[OrderController] Exception during checkout:");
-            ex.printStackTrace();
+            log.error("Exception during checkout", ex);
             // Provide a safe, concise error without leaking internal details
             String msg = ex.getMessage() != null ? ex.getMessage() : "Unknown error";
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -2,12 +2,19 @@ package com.corethreads.corethreads.controller;
 
 import com.corethreads.corethreads.dto.ProductSummaryDto;
 import com.corethreads.corethreads.entity.Product;
+import com.corethreads.corethreads.repository.ProductCatalogueRepository;
+import com.corethreads.corethreads.service.ProductFacetIndex;
 import com.corethreads.corethreads.service.ProductService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
 @RestController
 @RequestMapping("/api/products")
@@ -22,44 +29,110 @@ public class ProductController {
 
     // --- Get all products ---
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<List<Product>> getAllProducts(@RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) String sort,
+                                                        @RequestParam(defaultValue = "false") boolean count,
+                                                        ServletWebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        return page(productService.getProductPage(
+                new ProductCatalogueRepository.Filter(false, null), sort, cursor, limit, count));
     }
 
     // --- Get product summaries with image and lowest price ---
     @GetMapping("/summary")
-    public ResponseEntity<List<ProductSummaryDto>> getProductSummaries() {
-        return ResponseEntity.ok(productService.getProductSummaries());
+    public ResponseEntity<List<ProductSummaryDto>> getProductSummaries(@RequestParam(required = false) Integer limit,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(required = false) String sort,
+                                                                       @RequestParam(defaultValue = "false") boolean count,
+                                                                       ServletWebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        return page(productService.getProductSummaryPage(
+                new ProductCatalogueRepository.Filter(false, null), sort, cursor, limit, count));
+    }
+
+    // --- Faceted filtering with per-facet counts ---
+    // e.g. /facets?categoryId=2&color=black&color=navy blue&size=M&minPrice=20&maxPrice=50
+    @GetMapping("/facets")
+    public ResponseEntity<Map<String, Object>> getFacetedProducts(@RequestParam(required = false) Set<Long> categoryId,
+                                                                  @RequestParam(required = false) Set<String> color,
+                                                                  @RequestParam(required = false) Set<String> size,
+                                                                  @RequestParam(required = false) BigDecimal minPrice,
+                                                                  @RequestParam(required = false) BigDecimal maxPrice,
+                                                                  @RequestParam(defaultValue = "true") boolean activeOnly,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  ServletWebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        ProductFacetIndex.Query query = new ProductFacetIndex.Query(activeOnly, categoryId, color, size, minPrice, maxPrice);
+        return ResponseEntity.ok(productService.getFacetedProducts(query, cursor, limit));
     }
 
     // --- Get product by ID ---
     @GetMapping("/{productId}")
-    public ResponseEntity<Map<String, Object>> getProductById(@PathVariable Long productId) {
-        return productService.getProductDetail(productId)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Map<String, Object>> getProductById(@PathVariable Long productId,
+                                                              ServletWebRequest webRequest) {
+        Optional<ProductService.ProductDetail> detail = productService.getProductDetail(productId);
+        if (detail.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // The ETag was computed when the detail was cached, so a 304 skips serialisation entirely
+        if (webRequest.checkNotModified(detail.get().etag())) {
+            return null;
+        }
+        return ResponseEntity.ok(detail.get().body());
     }
 
-    // --- Search products by keyword ---
+    // --- Search products by keyword (ranked, served from the in-memory index) ---
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam(required = false) String keyword) {
-        return ResponseEntity.ok(productService.searchProducts(keyword));
+    public ResponseEntity<List<Product>> searchProducts(@RequestParam(required = false) String keyword,
+                                                        @RequestParam(defaultValue = "false") boolean activeOnly,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) String cursor,
+                                                        ServletWebRequest webRequest) {
+        if (keyword == null || keyword.isBlank()) {
+            return getAllProducts(limit, cursor, null, false, webRequest);
+        }
+        if (notModified(webRequest)) {
+            return null;
+        }
+        return page(productService.searchProducts(keyword, activeOnly, cursor, limit));
     }
 
     // --- Get products by category ---
     @GetMapping("/category/{categoryId}")
     public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable Long categoryId,
-                                                               @RequestParam(defaultValue = "false") boolean activeOnly) {
-        List<Product> products = activeOnly 
-            ? productService.getActiveProductsByCategory(categoryId)
-            : productService.getProductsByCategory(categoryId);
-        return ResponseEntity.ok(products);
+                                                               @RequestParam(defaultValue = "false") boolean activeOnly,
+                                                               @RequestParam(required = false) Integer limit,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) String sort,
+                                                               @RequestParam(defaultValue = "false") boolean count,
+                                                               ServletWebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        return page(productService.getProductPage(
+                new ProductCatalogueRepository.Filter(activeOnly, categoryId), sort, cursor, limit, count));
     }
 
     // --- Get active products only ---
     @GetMapping("/active")
-    public ResponseEntity<List<Product>> getActiveProducts() {
-        return ResponseEntity.ok(productService.getActiveProducts());
+    public ResponseEntity<List<Product>> getActiveProducts(@RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) String sort,
+                                                           @RequestParam(defaultValue = "false") boolean count,
+                                                           ServletWebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        return page(productService.getProductPage(
+                new ProductCatalogueRepository.Filter(true, null), sort, cursor, limit, count));
     }
 
     // --- Create product ---
@@ -87,4 +160,24 @@ public class ProductController {
         productService.deleteProduct(productId);
         return ResponseEntity.noContent().build();
     }
+
+    // Listing ETags come from the catalogue version, so an unchanged catalogue answers 304 without a query
+    private boolean notModified(ServletWebRequest webRequest) {
+        StringBuilder key = new StringBuilder(webRequest.getRequest().getRequestURI());
+        new TreeMap<>(webRequest.getParameterMap())
+                .forEach((name, values) -> key.append('&').append(name).append('=').append(String.join(",", values)));
+        return webRequest.checkNotModified(productService.catalogueETag(key.toString()));
+    }
+
+    // Page body stays a plain list; paging metadata travels in headers
+    private <T> ResponseEntity<List<T>> page(ProductService.ProductPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header("X-Next-Cursor", page.nextCursor());
+        }
+        if (page.totalCount() != null) {
+            response.header("X-Total-Count", String.valueOf(page.totalCount()));
+        }
+        return response.body(page.items());
+    }
 }
\ No newline at end of file
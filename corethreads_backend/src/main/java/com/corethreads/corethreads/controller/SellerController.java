@@ -1,24 +1,42 @@
 package com.corethreads.corethreads.controller;
 
-import com.corethreads.corethreads.entity.Order;
+import com.corethreads.corethreads.dto.SellerProductDto;
 import com.corethreads.corethreads.entity.Product;
-import com.corethreads.corethreads.entity.ProductImage;
 import com.corethreads.corethreads.entity.ProductVariant;
 import com.corethreads.corethreads.entity.Seller;
-import com.corethreads.corethreads.repository.OrderRepository;
+import com.corethreads.corethreads.repository.OrderItemRepository;
 import com.corethreads.corethreads.repository.ProductRepository;
 import com.corethreads.corethreads.repository.ProductImageRepository;
 import com.corethreads.corethreads.repository.ProductVariantRepository;
+import com.corethreads.corethreads.repository.ProductVariantStockRepository;
+import com.corethreads.corethreads.service.ImageRenditionService;
+import com.corethreads.corethreads.service.ImageStore;
+import com.corethreads.corethreads.service.ProductChangedEvent;
+import com.corethreads.corethreads.service.ProductStockReconciler;
+import com.corethreads.corethreads.service.SalesRollupService;
+import com.corethreads.corethreads.service.ProductImportService;
+import com.corethreads.corethreads.service.SellerExportService;
 import com.corethreads.corethreads.service.SellerService;
+import com.corethreads.corethreads.service.StockAdjustmentService;
+import com.corethreads.corethreads.util.InputValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +45,8 @@ import java.util.Map;
 @RequestMapping("/api/sellers")
 public class SellerController {
 
+    private static final Logger log = LoggerFactory.getLogger(SellerController.class);
+
     @Autowired
     private SellerService sellerService;
 
@@ -37,11 +57,44 @@ public class SellerController {
     private ProductVariantRepository productVariantRepository;
 
     @Autowired
-    private OrderRepository orderRepository;
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private SellerExportService sellerExportService;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private StockAdjustmentService stockAdjustmentService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @Autowired
     private ProductImageRepository productImageRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductStockReconciler productStockReconciler;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private ImageRenditionService imageRenditionService;
+
+    @Value("${seller.orders.page.default-size:50}")
+    private int defaultOrderPageSize;
+
+    @Value("${seller.orders.page.max-size:200}")
+    private int maxOrderPageSize;
+
     /**
      * ONE-TIME: Sync all Product.stock to ProductVariant.stock for the current seller
      * This fixes existing products where stocks are mismatched
@@ -63,34 +116,36 @@ public class SellerController {
                     .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(
                             HttpStatus.NOT_FOUND, "Seller profile not found"));
 
-            // Get all seller's products
-            List<Product> products = productRepository.findBySeller_SellerIdAndIsActiveTrue(seller.getSellerId());
-            int syncedCount = 0;
+            // One query for every variant of the seller's active products, then set-based writes
+            List<ProductVariantRepository.VariantStockRow> rows =
+                    productVariantRepository.findActiveVariantStockBySeller(seller.getSellerId());
+            Map<Long, List<ProductVariantRepository.VariantStockRow>> byProduct = new java.util.TreeMap<>();
+            for (ProductVariantRepository.VariantStockRow row : rows) {
+                byProduct.computeIfAbsent(row.getProductId(), k -> new java.util.ArrayList<>()).add(row);
+            }
 
-            for (Product product : products) {
-                long newStock = product.getStock() != null ? product.getStock() : 0L;
-                List<ProductVariant> variants = productVariantRepository.findByProductId(product.getProductId());
-                
-                if (!variants.isEmpty()) {
-                    // Distribute stock equally across all variants
-                    long perVariant = newStock / variants.size();
-                    long remainder = newStock % variants.size();
-                    
-                    for (int i = 0; i < variants.size(); i++) {
-                        variants.get(i).setStock(perVariant + (i == 0 ? remainder : 0));
-                        productVariantRepository.save(variants.get(i));
-                    }
-                    syncedCount++;
+            // Distribute each product's stock equally across its variants; the first takes the remainder
+            Map<Long, List<ProductVariantStockRepository.StockChange>> changes = new java.util.TreeMap<>();
+            byProduct.forEach((productId, variants) -> {
+                long newStock = variants.get(0).getProductStock() != null ? variants.get(0).getProductStock() : 0L;
+                long perVariant = newStock / variants.size();
+                long remainder = newStock % variants.size();
+                List<ProductVariantStockRepository.StockChange> productChanges = new java.util.ArrayList<>(variants.size());
+                for (int i = 0; i < variants.size(); i++) {
+                    productChanges.add(ProductVariantStockRepository.StockChange.absolute(
+                            variants.get(i).getVariantId(), perVariant + (i == 0 ? remainder : 0)));
                 }
-            }
+                changes.put(productId, productChanges);
+            });
+            stockAdjustmentService.applyByProduct(changes);
 
             return ResponseEntity.ok(Map.of(
                     "message", "Stock synchronized successfully",
-                    "syncedProducts", syncedCount,
-                    "totalProducts", products.size()
+                    "syncedProducts", changes.size(),
+                    "totalProducts", productRepository.countBySeller_SellerIdAndIsActiveTrue(seller.getSellerId())
             ));
         } catch (Exception ex) {
-            ex.printStackTrace();
+            log.error("Failed to sync variant stock from products", ex);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Failed to sync stock: " + ex.getMessage()));
         }
@@ -118,18 +173,10 @@ public class SellerController {
                             HttpStatus.NOT_FOUND, "Seller profile not found"));
 
             List<Product> products = productRepository.findBySeller_SellerIdAndIsActiveTrue(seller.getSellerId());
-            int syncedCount = 0;
-
-            for (Product product : products) {
-                List<ProductVariant> variants = productVariantRepository.findByProductId(product.getProductId());
-                long variantSum = variants.stream()
-                        .map(ProductVariant::getStock)
-                        .filter(s -> s != null)
-                        .reduce(0L, Long::sum);
-                product.setStock(variantSum);
-                productRepository.save(product);
-                syncedCount++;
-            }
+            List<Long> productIds = products.stream().map(Product::getProductId).toList();
+            // One bulk UPDATE re-derives every product from its variants
+            int syncedCount = productStockReconciler.reconcile(productIds);
+            products.forEach(product -> eventPublisher.publishEvent(new ProductChangedEvent(product)));
 
             return ResponseEntity.ok(Map.of(
                     "message", "Stock synchronized from variants",
@@ -137,30 +184,12 @@ public class SellerController {
                     "totalProducts", products.size()
             ));
         } catch (Exception ex) {
-            ex.printStackTrace();
+            log.error("Failed to sync product stock from variants", ex);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Failed to sync stock from variants: " + ex.getMessage()));
         }
     }
 
-    /**
-     * Sanitize product name: remove risky chars, control chars, limit length
-     */
-    private String sanitizeProductName(String raw) {
-        if (raw == null || raw.trim().isEmpty()) return null;
-        String v = raw
-                .replaceAll("[\\u0000-\\u001F\\u007F]", "") // control chars
-                .replaceAll("[<>`\"'=\\\\]", "") // risky meta chars
-                .replaceAll("-{2,}", "-") // collapse dashes
-                .replaceAll("/{2,}", "/") // collapse slashes
-                .replaceAll("\\s{2,}", " ") // collapse multiple spaces
-                .trim();
-        // Whitelist: keep only A-Z a-z 0-9 space . , & ( ) - / # +
-        v = v.replaceAll("[^A-Za-z0-9 .&()'\\-/#\\+,]", "");
-        if (v.length() > 100) v = v.substring(0, 100);
-        return v.isEmpty() ? null : v;
-    }
-
     public record RegisterSellerRequest(String storeName, String storeDescription) {}
 
     /**
@@ -195,11 +224,7 @@ public class SellerController {
             return ResponseEntity.status(ex.getStatusCode())
                     .body(Map.of("error", ex.getReason()));
         } catch (Exception ex) {
-            System.err.println("=== SELLER REGISTRATION ERROR ===");
-            System.err.println("Exception: " + ex.getClass().getSimpleName());
-            System.err.println("Message: " + ex.getMessage());
-            ex.printStackTrace();
-            System.err.println("==============================");
+            log.error("Seller registration failed", ex);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "An error occurred during seller registration: " + ex.getMessage()));
         }
@@ -261,18 +286,11 @@ public class SellerController {
                     .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(
                             HttpStatus.NOT_FOUND, "Seller profile not found"));
 
-            // Get seller's products count
-            List<Product> products = productRepository.findBySeller_SellerIdAndIsActiveTrue(seller.getSellerId());
-            long totalProducts = products.size();
-
-            // Get seller's orders (for now, we'll use all orders - adjust based on your Order entity structure)
-            List<Order> orders = orderRepository.findAll(); // TODO: Filter by seller when Order entity has seller reference
-            long totalOrders = orders.size();
-
-            // Calculate total sales from orders
-            BigDecimal totalSales = orders.stream()
-                    .map(Order::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            // Counted and summed in the database over this seller's line items only
+            long totalProducts = productRepository.countBySeller_SellerIdAndIsActiveTrue(seller.getSellerId());
+            OrderItemRepository.SellerSales sales = orderItemRepository.sumSalesBySeller(seller.getSellerId());
+            long totalOrders = sales.getOrderCount() != null ? sales.getOrderCount() : 0L;
+            BigDecimal totalSales = sales.getSales() != null ? sales.getSales() : BigDecimal.ZERO;
 
             return ResponseEntity.ok(Map.of(
                     "totalSales", totalSales,
@@ -288,6 +306,62 @@ public class SellerController {
         }
     }
 
+    /**
+     * Daily sales series for the seller, read from the rollups (defaults to the last 30 days)
+     */
+    @GetMapping("/analytics/daily")
+    public ResponseEntity<?> getDailySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletRequest request) {
+        return analytics(request, from, to, "Failed to fetch sales analytics",
+                (sellerId, start, end) -> Map.of("from", start, "to", end,
+                        "days", salesRollupService.getDailySales(sellerId, start, end)));
+    }
+
+    /**
+     * Per-product sales totals for the seller over a date range, best sellers first
+     */
+    @GetMapping("/analytics/products")
+    public ResponseEntity<?> getProductSales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletRequest request) {
+        return analytics(request, from, to, "Failed to fetch sales analytics",
+                (sellerId, start, end) -> Map.of("from", start, "to", end,
+                        "products", salesRollupService.getProductSales(sellerId, start, end)));
+    }
+
+    private interface AnalyticsQuery {
+        Object run(Long sellerId, LocalDate from, LocalDate to);
+    }
+
+    private ResponseEntity<?> analytics(HttpServletRequest request, LocalDate from, LocalDate to,
+                                        String failureMessage, AnalyticsQuery query) {
+        try {
+            HttpSession session = request.getSession(false);
+            Long customerId = session != null ? (Long) session.getAttribute("customerId") : null;
+            if (customerId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(Map.of("error", "Not authenticated"));
+            }
+
+            Seller seller = sellerService.getSellerByCustomerId(customerId)
+                    .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(
+                            HttpStatus.NOT_FOUND, "Seller profile not found"));
+
+            LocalDate end = to != null ? to : LocalDate.now();
+            LocalDate start = from != null ? from : end.minusDays(29);
+            return ResponseEntity.ok(query.run(seller.getSellerId(), start, end));
+        } catch (org.springframework.web.server.ResponseStatusException ex) {
+            return ResponseEntity.status(ex.getStatusCode())
+                    .body(Map.of("error", ex.getReason()));
+        } catch (Exception ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", failureMessage));
+        }
+    }
+
     /**
      * Get seller's products
      */
@@ -310,30 +384,20 @@ public class SellerController {
                     .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(
                             HttpStatus.NOT_FOUND, "Seller profile not found"));
 
-            List<Product> products = productRepository.findBySeller_SellerIdAndIsActiveTrue(seller.getSellerId());
-
-            List<Map<String, Object>> productList = products.stream()
-                    .map(product -> {
-                        Map<String, Object> productMap = new HashMap<>();
-                        productMap.put("productId", product.getProductId());
-                        productMap.put("name", product.getName());
-                        productMap.put("description", product.getDescription());
-                        productMap.put("isActive", product.isActive());
-                        productMap.put("category", product.getCategory());
-                        productMap.put("price", product.getPrice());
-                        productMap.put("stock", product.getStock());
-                        productMap.put("colors", product.getColors() == null || product.getColors().isBlank() ? java.util.List.of() : java.util.Arrays.stream(product.getColors().split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList());
-                        productMap.put("productCode", product.getProductCode());
-                    String imageUrl = productImageRepository.findByProductIdOrderByDisplayOrder(product.getProductId())
-                        .stream()
-                        .map(ProductImage::getImageUrl)
-                        .findFirst()
-                        .orElse("/images/placeholder.png");
-                    productMap.put("imageUrl", imageUrl);
-                        productMap.put("createdAt", product.getCreatedAt());
-                        // Add more fields as needed (price from variants, images, etc.)
-                        return productMap;
-                    })
+            // Listing columns and first image in one query; no entity graph, no per-product image lookup
+            List<SellerProductDto> productList = productRepository.findSellerListing(seller.getSellerId()).stream()
+                    .map(row -> new SellerProductDto(
+                            row.getProductId(),
+                            row.getName(),
+                            row.getDescription(),
+                            Boolean.TRUE.equals(row.getActive()),
+                            row.getCategory(),
+                            row.getPrice(),
+                            row.getStock(),
+                            splitColors(row.getColors()),
+                            row.getProductCode(),
+                            row.getImageUrl() != null ? row.getImageUrl() : "/images/placeholder.png",
+                            row.getCreatedAt()))
                     .toList();
 
             return ResponseEntity.ok(Map.of("products", productList));
@@ -352,6 +416,8 @@ public class SellerController {
     @GetMapping("/orders")
     public ResponseEntity<?> getSellerOrders(
             @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             HttpServletRequest request) {
         try {
             HttpSession session = request.getSession(false);
@@ -370,28 +436,39 @@ public class SellerController {
                     .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(
                             HttpStatus.NOT_FOUND, "Seller profile not found"));
 
-            // For now, return all orders. TODO: Filter by seller when Order entity has seller reference
-            List<Order> orders;
-            if (status != null && !status.isEmpty()) {
-                orders = orderRepository.findByStatus(status.toUpperCase());
-            } else {
-                orders = orderRepository.findAll();
+            // Keyset page of orders containing this seller's items, newest first
+            int pageSize = limit == null || limit <= 0 ? defaultOrderPageSize : Math.min(limit, maxOrderPageSize);
+            String statusFilter = status != null && !status.isEmpty() ? status.toUpperCase() : null;
+            List<OrderItemRepository.SellerOrderRow> rows = orderItemRepository.findSellerOrders(
+                    seller.getSellerId(), statusFilter, decodeOrderCursor(cursor), PageRequest.of(0, pageSize + 1));
+            boolean hasMore = rows.size() > pageSize;
+            if (hasMore) {
+                rows = rows.subList(0, pageSize);
             }
 
-            List<Map<String, Object>> orderList = orders.stream()
-                    .map(order -> {
+            List<Map<String, Object>> orderList = rows.stream()
+                    .map(row -> {
                         Map<String, Object> orderMap = new HashMap<>();
-                        orderMap.put("orderId", order.getOrderId());
-                        orderMap.put("orderNumber", order.getOrderNumber());
-                        orderMap.put("customerName", order.getCustomer().getFirstName() + " " + order.getCustomer().getLastName());
-                        orderMap.put("totalAmount", order.getTotalAmount());
-                        orderMap.put("status", order.getStatus());
-                        orderMap.put("createdAt", order.getCreatedAt());
+                        orderMap.put("orderId", row.getOrderId());
+                        orderMap.put("orderNumber", row.getOrderNumber());
+                        orderMap.put("customerName", row.getFirstName() + " " + row.getLastName());
+                        // The seller's share; other sellers' items in the same order are not theirs to see
+                        orderMap.put("totalAmount", row.getAmount());
+                        orderMap.put("status", row.getStatus());
+                        orderMap.put("createdAt", row.getCreatedAt());
                         return orderMap;
                     })
                     .toList();
 
-            return ResponseEntity.ok(Map.of("orders", orderList));
+            String nextCursor = hasMore ? encodeOrderCursor(rows.get(rows.size() - 1).getOrderId()) : null;
+            Map<String, Object> body = new HashMap<>();
+            body.put("orders", orderList);
+            body.put("nextCursor", nextCursor);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (nextCursor != null) {
+                response.header("X-Next-Cursor", nextCursor);
+            }
+            return response.body(body);
         } catch (org.springframework.web.server.ResponseStatusException ex) {
             return ResponseEntity.status(ex.getStatusCode())
                     .body(Map.of("error", ex.getReason()));
@@ -401,6 +478,108 @@ public class SellerController {
         }
     }
 
+    /**
+     * Export all of the seller's orders as CSV or NDJSON, streamed row by row
+     */
+    @GetMapping("/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportSellerOrders(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) {
+        return export(request, format, "orders", (sellerId, fmt, out) ->
+                sellerExportService.writeOrders(sellerId, status, fmt, out));
+    }
+
+    /**
+     * Export all of the seller's products (active and inactive) as CSV or NDJSON
+     */
+    @GetMapping("/products/export")
+    public ResponseEntity<StreamingResponseBody> exportSellerProducts(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) {
+        return export(request, format, "products", (sellerId, fmt, out) ->
+                sellerExportService.writeProducts(sellerId, fmt, out));
+    }
+
+    private interface ExportWriter {
+        void write(Long sellerId, SellerExportService.Format format, java.io.OutputStream out) throws java.io.IOException;
+    }
+
+    // Resolves the seller up front so errors still get the usual JSON body; the rows are written
+    // after the response is committed, on the MVC async executor
+    private ResponseEntity<StreamingResponseBody> export(HttpServletRequest request, String format, String name, ExportWriter writer) {
+        try {
+            HttpSession session = request.getSession(false);
+            Long customerId = session != null ? (Long) session.getAttribute("customerId") : null;
+            if (customerId == null) {
+                return exportError(HttpStatus.UNAUTHORIZED, "Not authenticated");
+            }
+
+            Seller seller = sellerService.getSellerByCustomerId(customerId)
+                    .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(
+                            HttpStatus.NOT_FOUND, "Seller profile not found"));
+            SellerExportService.Format fmt = SellerExportService.Format.parse(format);
+            Long sellerId = seller.getSellerId();
+
+            StreamingResponseBody body = out -> writer.write(sellerId, fmt, out);
+            return ResponseEntity.ok()
+                    .contentType(fmt.mediaType())
+                    .header("Content-Disposition", "attachment; filename=\"" + name + "." + fmt.extension() + "\"")
+                    .body(body);
+        } catch (org.springframework.web.server.ResponseStatusException ex) {
+            return exportError(ex.getStatusCode(), ex.getReason());
+        } catch (Exception ex) {
+            return exportError(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to export " + name);
+        }
+    }
+
+    // A StreamingResponseBody handler cannot return a Map, so the error JSON is written directly
+    private ResponseEntity<StreamingResponseBody> exportError(org.springframework.http.HttpStatusCode status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(org.springframework.http.MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, Map.of("error", message)));
+    }
+
+    // Opaque keyset cursor for the seller order feed (last orderId of the previous page)
+    private static String encodeOrderCursor(Long orderId) {
+        return java.util.Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("o:" + orderId).getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    }
+
+    private static Long decodeOrderCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(java.util.Base64.getUrlDecoder().decode(cursor), java.nio.charset.StandardCharsets.UTF_8);
+            if (raw.startsWith("o:")) {
+                return Long.parseLong(raw.substring(2));
+            }
+        } catch (IllegalArgumentException ex) {
+            // fall through
+        }
+        throw new org.springframework.web.server.ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+
+    // "Red, Blue,,Green" -> [Red, Blue, Green]; a single scan, no regex or stream per row
+    private static List<String> splitColors(String colors) {
+        if (colors == null || colors.isBlank()) {
+            return List.of();
+        }
+        List<String> result = new java.util.ArrayList<>();
+        int from = 0;
+        while (from <= colors.length()) {
+            int comma = colors.indexOf(',', from);
+            int to = comma < 0 ? colors.length() : comma;
+            String color = colors.substring(from, to).trim();
+            if (!color.isEmpty()) {
+                result.add(color);
+            }
+            from = to + 1;
+        }
+        return result;
+    }
+
     public record UpdateSellerRequest(String storeName, String storeDescription) {}
 
     /**
@@ -468,7 +647,7 @@ public class SellerController {
                 return ResponseEntity.badRequest().body(Map.of("error", "Product name is required"));
             }
 
-            String safeName = sanitizeProductName(request.name());
+            String safeName = InputValidator.sanitizeProductName(request.name());
             if (safeName == null || safeName.isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Product name is invalid after sanitization"));
             }
@@ -518,6 +697,7 @@ public class SellerController {
             product.setUpdatedAt(java.time.LocalDateTime.now());
 
             Product saved = productRepository.save(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(saved));
 
             Map<String, Object> response = new HashMap<>();
             response.put("productId", saved.getProductId());
@@ -528,7 +708,7 @@ public class SellerController {
             response.put("price", saved.getPrice());
             response.put("stock", saved.getStock());
             response.put("productCode", saved.getProductCode());
-            response.put("colors", saved.getColors() == null || saved.getColors().isBlank() ? java.util.List.of() : java.util.Arrays.stream(saved.getColors().split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList());
+            response.put("colors", splitColors(saved.getColors()));
             response.put("createdAt", saved.getCreatedAt());
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (org.springframework.web.server.ResponseStatusException ex) {
@@ -546,9 +726,7 @@ public class SellerController {
                                                  @RequestBody UpsertProductRequest request,
                                                  HttpServletRequest httpRequest) {
         try {
-            System.out.println("=== SELLER UPDATE PRODUCT ENDPOINT CALLED ===");
-            System.out.println("ProductId: " + productId);
-            System.out.println("Request stock: " + request.stock());
+            log.debug("Seller update product {}: requested stock {}", productId, request.stock());
             
             HttpSession session = httpRequest.getSession(false);
             if (session == null) {
@@ -570,7 +748,7 @@ public class SellerController {
             }
 
             if (request.name() != null && !request.name().trim().isEmpty()) {
-                String safeName = sanitizeProductName(request.name());
+                String safeName = InputValidator.sanitizeProductName(request.name());
                 if (safeName != null && !safeName.isEmpty()) {
                     product.setName(safeName);
                 }
@@ -593,51 +771,52 @@ public class SellerController {
             }
             if (request.stock() != null) {
                 long newStock = Math.max(0L, request.stock());
-                System.out.println("Setting product stock to: " + newStock);
+                log.debug("Setting product stock to: {}", newStock);
                 product.setStock(newStock);
                 
-                // Update ProductVariant stocks proportionally to maintain consistency
+                // Redistribute across the variants proportionally to their current stock, written
+                // through the same set-based path as sync-stock rather than versioned entity saves
                 List<ProductVariant> variants = productVariantRepository.findByProductId(productId);
                 if (!variants.isEmpty()) {
                     long oldTotalStock = variants.stream()
                             .map(ProductVariant::getStock)
                             .filter(s -> s != null)
                             .reduce(0L, Long::sum);
-                    
+
+                    List<ProductVariantStockRepository.StockChange> changes = new java.util.ArrayList<>(variants.size());
                     if (oldTotalStock > 0) {
-                        // Distribute new stock proportionally
                         long distributed = 0;
                         for (int i = 0; i < variants.size(); i++) {
                             ProductVariant v = variants.get(i);
-                            long oldVariantStock = v.getStock() != null ? v.getStock() : 0;
+                            long variantStock;
                             if (i == variants.size() - 1) {
                                 // Last variant gets remainder to avoid rounding errors
-                                v.setStock(newStock - distributed);
+                                variantStock = newStock - distributed;
                             } else {
-                                long variantStock = oldTotalStock > 0 
-                                    ? (long) Math.floor((double) oldVariantStock / oldTotalStock * newStock)
-                                    : newStock / variants.size();
-                                v.setStock(variantStock);
+                                long oldVariantStock = v.getStock() != null ? v.getStock() : 0;
+                                variantStock = (long) Math.floor((double) oldVariantStock / oldTotalStock * newStock);
                                 distributed += variantStock;
                             }
-                            productVariantRepository.save(v);
+                            changes.add(ProductVariantStockRepository.StockChange.absolute(v.getVariantId(), variantStock));
                         }
                     } else {
                         // Equal distribution if no previous stock
                         long perVariant = newStock / variants.size();
                         long remainder = newStock % variants.size();
                         for (int i = 0; i < variants.size(); i++) {
-                            variants.get(i).setStock(perVariant + (i == 0 ? remainder : 0));
-                            productVariantRepository.save(variants.get(i));
+                            changes.add(ProductVariantStockRepository.StockChange.absolute(
+                                    variants.get(i).getVariantId(), perVariant + (i == 0 ? remainder : 0)));
                         }
                     }
+                    stockAdjustmentService.applyByProduct(Map.of(productId, changes));
                 }
             }
             product.setUpdatedAt(java.time.LocalDateTime.now());
 
-            System.out.println("About to save product with stock: " + product.getStock());
+            log.debug("About to save product with stock: {}", product.getStock());
             Product saved = productRepository.save(product);
-            System.out.println("Product saved successfully. Saved stock: " + saved.getStock());
+            eventPublisher.publishEvent(new ProductChangedEvent(saved));
+            log.debug("Product saved successfully. Saved stock: {}", saved.getStock());
 
             Map<String, Object> response = new HashMap<>();
             response.put("productId", saved.getProductId());
@@ -648,7 +827,7 @@ public class SellerController {
             response.put("price", saved.getPrice());
             response.put("stock", saved.getStock());
             response.put("productCode", saved.getProductCode());
-            response.put("colors", saved.getColors() == null || saved.getColors().isBlank() ? java.util.List.of() : java.util.Arrays.stream(saved.getColors().split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList());
+            response.put("colors", splitColors(saved.getColors()));
             response.put("updatedAt", saved.getUpdatedAt());
             return ResponseEntity.ok(response);
         } catch (org.springframework.web.server.ResponseStatusException ex) {
@@ -684,7 +863,7 @@ public class SellerController {
 
             product.setActive(false);
             product.setUpdatedAt(java.time.LocalDateTime.now());
-            productRepository.save(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(productRepository.save(product)));
             return ResponseEntity.noContent().build();
         } catch (org.springframework.web.server.ResponseStatusException ex) {
             return ResponseEntity.status(ex.getStatusCode()).body(Map.of("error", ex.getReason()));
@@ -700,6 +879,29 @@ public class SellerController {
     public ResponseEntity<?> uploadProductImage(@PathVariable Long productId,
                                                 @RequestParam("file") MultipartFile file,
                                                 HttpServletRequest httpRequest) {
+        if (file == null || file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Image file is required"));
+        }
+        // The part is already spooled to disk by the container (file-size-threshold=0); stream from there
+        return attachImage(productId, file.getContentType(), httpRequest, file::getInputStream);
+    }
+
+    /**
+     * Upload a product image sent as the raw request body (Content-Type: image/*).
+     * Bytes go from the socket straight into the image store without an intermediate copy.
+     */
+    @PostMapping(path = "/products/{productId}/image", consumes = {"image/png", "image/jpeg", "image/gif", "image/webp"})
+    public ResponseEntity<?> uploadProductImageStream(@PathVariable Long productId,
+                                                      HttpServletRequest httpRequest) {
+        return attachImage(productId, httpRequest.getContentType(), httpRequest, httpRequest::getInputStream);
+    }
+
+    private interface BodySource {
+        java.io.InputStream open() throws java.io.IOException;
+    }
+
+    private ResponseEntity<?> attachImage(Long productId, String contentType, HttpServletRequest httpRequest,
+                                          BodySource source) {
         try {
             HttpSession session = httpRequest.getSession(false);
             if (session == null) {
@@ -719,44 +921,112 @@ public class SellerController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not allowed to modify this product"));
             }
 
-            if (file == null || file.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Image file is required"));
-            }
-            String contentType = file.getContentType();
             if (contentType == null || !contentType.toLowerCase().startsWith("image/")) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Only image files are allowed"));
             }
 
-            // Generate safe filename
-            String original = file.getOriginalFilename();
-            String ext = ".img";
-            if (original != null && original.contains(".")) {
-                ext = original.substring(original.lastIndexOf('.'));
+            // Content-addressed file in the image store; the type is sniffed and the size capped while streaming
+            String storedName;
+            try (java.io.InputStream in = source.open()) {
+                storedName = imageStore.store(in);
             }
-            String safeName = "product_" + productId + "_" + System.currentTimeMillis() + ext;
-
-            // Save into both dev and runtime static paths
-            java.nio.file.Path devPath = java.nio.file.Paths.get("src", "main", "resources", "static", "images", safeName);
-            java.nio.file.Path runtimePath = java.nio.file.Paths.get("target", "classes", "static", "images", safeName);
-            java.nio.file.Files.createDirectories(devPath.getParent());
-            java.nio.file.Files.createDirectories(runtimePath.getParent());
-            byte[] bytes = file.getBytes();
-            java.nio.file.Files.write(devPath, bytes);
-            java.nio.file.Files.write(runtimePath, bytes);
 
             // Persist ProductImage
             com.corethreads.corethreads.entity.ProductImage img = new com.corethreads.corethreads.entity.ProductImage();
             img.setProduct(product);
-            img.setImageUrl("/images/" + safeName);
+            img.setImageUrl("/images/" + storedName);
             img.setDisplayOrder(0);
             img.setUploadedAt(java.time.LocalDateTime.now());
             productImageRepository.save(img);
+            eventPublisher.publishEvent(new ProductChangedEvent(product));
+            // Thumb/card/detail sizes are generated in the background; until then the original is served
+            imageRenditionService.enqueue(img.getImageId());
 
             return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("imageUrl", img.getImageUrl()));
         } catch (org.springframework.web.server.ResponseStatusException ex) {
             return ResponseEntity.status(ex.getStatusCode()).body(Map.of("error", ex.getReason()));
         } catch (Exception ex) {
+            log.warn("Image upload failed for product {}", productId, ex);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Failed to upload image"));
         }
     }
+
+    /**
+     * Bulk product import from a CSV or JSON array request body (Content-Type text/csv or application/json).
+     * Parsed and saved in chunks as it streams in; the response lists per-row errors.
+     */
+    @PostMapping(path = "/products/import", consumes = {"text/csv", "application/json"})
+    public ResponseEntity<?> importProducts(HttpServletRequest httpRequest) {
+        boolean csv = httpRequest.getContentType().toLowerCase().startsWith("text/csv");
+        return importProducts(csv, httpRequest, httpRequest::getInputStream);
+    }
+
+    /**
+     * Bulk product import from an uploaded .csv or .json file
+     */
+    @PostMapping(path = "/products/import", consumes = {"multipart/form-data"})
+    public ResponseEntity<?> importProductsFile(@RequestParam("file") MultipartFile file, HttpServletRequest httpRequest) {
+        if (file == null || file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Import file is required"));
+        }
+        String filename = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+        String contentType = file.getContentType() != null ? file.getContentType().toLowerCase() : "";
+        boolean csv = filename.endsWith(".csv") || contentType.startsWith("text/csv");
+        if (!csv && !filename.endsWith(".json") && !contentType.startsWith("application/json")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Import file must be .csv or .json"));
+        }
+        return importProducts(csv, httpRequest, file::getInputStream);
+    }
+
+    private ResponseEntity<?> importProducts(boolean csv, HttpServletRequest httpRequest, BodySource source) {
+        try {
+            HttpSession session = httpRequest.getSession(false);
+            Long customerId = session != null ? (Long) session.getAttribute("customerId") : null;
+            if (customerId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not authenticated"));
+            }
+
+            // One seller lookup for the whole upload
+            Seller seller = sellerService.getSellerByCustomerId(customerId)
+                    .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(HttpStatus.NOT_FOUND, "Seller profile not found"));
+
+            ProductImportService.ImportResult result;
+            try (java.io.InputStream in = source.open()) {
+                result = csv ? productImportService.importCsv(seller, in) : productImportService.importJson(seller, in);
+            }
+            return ResponseEntity.ok(result);
+        } catch (org.springframework.web.server.ResponseStatusException ex) {
+            return ResponseEntity.status(ex.getStatusCode()).body(Map.of("error", ex.getReason()));
+        } catch (Exception ex) {
+            log.warn("Product import failed", ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Failed to import products"));
+        }
+    }
+
+    public record BulkStockRequest(List<StockAdjustmentService.Adjustment> adjustments) {}
+
+    /**
+     * Bulk stock update: each entry names a variant by sku or variantId and gives either an
+     * absolute "set" or a "delta". Applied set-based; the response lists entries that failed.
+     */
+    @PostMapping("/products/stock")
+    public ResponseEntity<?> bulkUpdateStock(@RequestBody BulkStockRequest request, HttpServletRequest httpRequest) {
+        try {
+            HttpSession session = httpRequest.getSession(false);
+            Long customerId = session != null ? (Long) session.getAttribute("customerId") : null;
+            if (customerId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not authenticated"));
+            }
+
+            Seller seller = sellerService.getSellerByCustomerId(customerId)
+                    .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(HttpStatus.NOT_FOUND, "Seller profile not found"));
+
+            return ResponseEntity.ok(stockAdjustmentService.apply(seller.getSellerId(), request.adjustments()));
+        } catch (org.springframework.web.server.ResponseStatusException ex) {
+            return ResponseEntity.status(ex.getStatusCode()).body(Map.of("error", ex.getReason()));
+        } catch (Exception ex) {
+            log.warn("Bulk stock update failed", ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Failed to update stock"));
+        }
+    }
 }
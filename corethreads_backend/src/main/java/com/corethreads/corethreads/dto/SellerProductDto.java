@@ -0,0 +1,133 @@
+package com.corethreads.corethreads.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One row of the seller's own product listing
+public class SellerProductDto {
+    private Long productId;
+    private String name;
+    private String description;
+    private boolean isActive;
+    private String category;
+    private BigDecimal price;
+    private Long stock;
+    private List<String> colors;
+    private String productCode;
+    private String imageUrl;
+    private LocalDateTime createdAt;
+
+    public SellerProductDto(Long productId,
+                            String name,
+                            String description,
+                            boolean isActive,
+                            String category,
+                            BigDecimal price,
+                            Long stock,
+                            List<String> colors,
+                            String productCode,
+                            String imageUrl,
+                            LocalDateTime createdAt) {
+        this.productId = productId;
+        this.name = name;
+        this.description = description;
+        this.isActive = isActive;
+        this.category = category;
+        this.price = price;
+        this.stock = stock;
+        this.colors = colors;
+        this.productCode = productCode;
+        this.imageUrl = imageUrl;
+        this.createdAt = createdAt;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    // Serialised as "isActive", the key the seller dashboard reads
+    public boolean getIsActive() {
+        return isActive;
+    }
+
+    public void setIsActive(boolean isActive) {
+        this.isActive = isActive;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Long getStock() {
+        return stock;
+    }
+
+    public void setStock(Long stock) {
+        this.stock = stock;
+    }
+
+    public List<String> getColors() {
+        return colors;
+    }
+
+    public void setColors(List<String> colors) {
+        this.colors = colors;
+    }
+
+    public String getProductCode() {
+        return productCode;
+    }
+
+    public void setProductCode(String productCode) {
+        this.productCode = productCode;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,5 +1,6 @@
 package com.corethreads.corethreads.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -47,6 +48,12 @@ public class Customer {
     @Column(name = "balance", nullable = false)
     private Double balance = 1000.0; // Default balance for new accounts
 
+    // Optimistic lock: concurrent balance updates fail instead of overwriting each other
+    @Version
+    @JsonIgnore
+    @Column(name = "version", nullable = false)
+    private long version;
+
     // Role enum
     public enum Role {
         USER,
@@ -187,6 +194,10 @@ public class Customer {
         this.balance = balance;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     @PrePersist
     protected void onCreate() {
         if (this.createdAt == null) {
@@ -8,8 +8,11 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 @Table(name = "OrderItem")
 public class OrderItem {
 
+    // Pooled ids (50 per round trip) so the items of an order can be inserted as one JDBC batch;
+    // IDENTITY forces Hibernate to insert row by row to read each generated key
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq", allocationSize = 50)
     @Column(name = "order_item_id")
     private Long orderItemId;
 
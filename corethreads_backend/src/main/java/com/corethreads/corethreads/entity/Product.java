@@ -8,8 +8,10 @@ import java.math.BigDecimal;
 @Table(name = "product")
 public class Product {
 
+    // Pooled ids (50 per round trip) so bulk imports insert in JDBC batches; see V6 migration
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     @Column(name = "product_id")
     private Long productId;
 
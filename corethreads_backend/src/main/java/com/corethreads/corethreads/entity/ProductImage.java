@@ -7,8 +7,10 @@ import java.time.LocalDateTime;
 @Table(name = "ProductImage")
 public class ProductImage {
 
+    // Pooled ids, as for Product, so bulk imports can batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_image_seq")
+    @SequenceGenerator(name = "product_image_seq", sequenceName = "product_image_seq", allocationSize = 50)
     @Column(name = "image_id")
     private Long imageId;
 
@@ -19,6 +21,16 @@ public class ProductImage {
     @Column(name = "image_url", nullable = false)
     private String imageUrl;
 
+    // Resized copies written by ImageRenditionService; null until the background job has run
+    @Column(name = "thumb_url")
+    private String thumbUrl;
+
+    @Column(name = "card_url")
+    private String cardUrl;
+
+    @Column(name = "detail_url")
+    private String detailUrl;
+
     @Column(name = "display_order")
     private Integer displayOrder = 0;
 
@@ -59,6 +71,30 @@ public class ProductImage {
         this.imageUrl = imageUrl;
     }
 
+    public String getThumbUrl() {
+        return thumbUrl;
+    }
+
+    public void setThumbUrl(String thumbUrl) {
+        this.thumbUrl = thumbUrl;
+    }
+
+    public String getCardUrl() {
+        return cardUrl;
+    }
+
+    public void setCardUrl(String cardUrl) {
+        this.cardUrl = cardUrl;
+    }
+
+    public String getDetailUrl() {
+        return detailUrl;
+    }
+
+    public void setDetailUrl(String detailUrl) {
+        this.detailUrl = detailUrl;
+    }
+
     public Integer getDisplayOrder() {
         return displayOrder;
     }
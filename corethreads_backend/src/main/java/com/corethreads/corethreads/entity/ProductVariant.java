@@ -3,14 +3,17 @@ package com.corethreads.corethreads.entity;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 @Entity
 @Table(name = "ProductVariant")
 public class ProductVariant {
 
+    // Pooled ids, as for Product, so bulk imports can batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_variant_seq")
+    @SequenceGenerator(name = "product_variant_seq", sequenceName = "product_variant_seq", allocationSize = 50)
     @Column(name = "variant_id")
     private Long variantId;
 
@@ -37,6 +40,12 @@ public class ProductVariant {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Optimistic lock: a stale entity save fails instead of overwriting a newer stock value
+    @Version
+    @JsonIgnore
+    @Column(name = "version", nullable = false)
+    private long version;
+
     // --- Constructors ---
     public ProductVariant() {}
 
@@ -113,4 +122,8 @@ public class ProductVariant {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public long getVersion() {
+        return version;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.corethreads.corethreads.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One day of sales for one product of one seller, kept up to date by the checkout transaction.
+ * The seller's total for the day is spread over slot rows with negative product ids (see
+ * {@link #totalSlot}): each checkout adds to one slot picked at random, so concurrent checkouts
+ * for the same seller rarely wait on the same row, and readers sum the slots. Each order lands in
+ * exactly one slot, so the summed order count is the number of distinct orders, which per-product
+ * rows cannot be summed into.
+ */
+@Entity
+@Table(name = "seller_daily_sales",
+        uniqueConstraints = @UniqueConstraint(name = "uk_seller_daily_sales",
+                columnNames = {"seller_id", "product_id", "sales_date"}))
+public class SellerDailySales {
+
+    // product_id of the seller's day-total slot; slots are 0-based, ids run -1, -2, ...
+    public static long totalSlot(int slot) {
+        return -1L - slot;
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    @Column(name = "seller_id", nullable = false)
+    private Long sellerId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "units", nullable = false)
+    private Long units = 0L;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    // --- Constructors ---
+    public SellerDailySales() {}
+
+    // --- Getters ---
+    public Long getRollupId() {
+        return rollupId;
+    }
+
+    public Long getSellerId() {
+        return sellerId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public Long getUnits() {
+        return units;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+}
@@ -2,7 +2,11 @@ package com.corethreads.corethreads.repository;
 
 import com.corethreads.corethreads.entity.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -10,4 +14,10 @@ import java.util.List;
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     List<CartItem> findByCartCartId(Long cartId);
     void deleteByCartCartIdAndVariantVariantId(Long cartId, Long variantId);
+
+    // Single DELETE statement instead of loading and removing items one by one
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.cartId = :cartId")
+    int deleteAllByCartId(@Param("cartId") Long cartId);
 }
@@ -2,9 +2,11 @@ package com.corethreads.corethreads.repository;
 
 import com.corethreads.corethreads.entity.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -17,4 +19,10 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 	// Align native query with entity mapping: table `customer`, PK `customer_id`
 	@Query(value = "SELECT * FROM customer WHERE customer_id = :customerId", nativeQuery = true)
 	Optional<Customer> findByCustomerIdNative(@Param("customerId") Long customerId);
+
+	// Replaces only the hash (login rehash); leaves the optimistic-lock version alone
+	@Transactional
+	@Modifying
+	@Query("UPDATE Customer c SET c.password = :password WHERE c.customerId = :customerId")
+	int updatePassword(@Param("customerId") Long customerId, @Param("password") String password);
 }
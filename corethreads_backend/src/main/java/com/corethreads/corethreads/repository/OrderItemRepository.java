@@ -1,12 +1,70 @@
 package com.corethreads.corethreads.repository;
 
 import com.corethreads.corethreads.entity.OrderItem;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrder_OrderId(Long orderId);
+
+    // --- Seller-scoped aggregates: only line items of the seller's own products count ---
+
+    interface SellerSales {
+        Long getOrderCount();
+        BigDecimal getSales();
+    }
+
+    @Query("SELECT COUNT(DISTINCT oi.order.orderId) AS orderCount, COALESCE(SUM(oi.subtotal), 0) AS sales " +
+           "FROM OrderItem oi WHERE oi.variant.product.seller.sellerId = :sellerId")
+    SellerSales sumSalesBySeller(@Param("sellerId") Long sellerId);
+
+    // One row per order containing the seller's items; amount is the seller's share of the order
+    interface SellerOrderRow {
+        Long getOrderId();
+        String getOrderNumber();
+        String getFirstName();
+        String getLastName();
+        BigDecimal getAmount();
+        String getStatus();
+        LocalDateTime getCreatedAt();
+    }
+
+    // Keyset page, newest first: pass the last orderId of the previous page as beforeOrderId
+    @Query("SELECT o.orderId AS orderId, o.orderNumber AS orderNumber, c.firstName AS firstName, " +
+           "c.lastName AS lastName, SUM(oi.subtotal) AS amount, o.status AS status, o.createdAt AS createdAt " +
+           "FROM OrderItem oi JOIN oi.order o JOIN o.customer c " +
+           "WHERE oi.variant.product.seller.sellerId = :sellerId " +
+           "AND (:status IS NULL OR o.status = :status) " +
+           "AND (:beforeOrderId IS NULL OR o.orderId < :beforeOrderId) " +
+           "GROUP BY o.orderId, o.orderNumber, c.firstName, c.lastName, o.status, o.createdAt " +
+           "ORDER BY o.orderId DESC")
+    List<SellerOrderRow> findSellerOrders(@Param("sellerId") Long sellerId,
+                                          @Param("status") String status,
+                                          @Param("beforeOrderId") Long beforeOrderId,
+                                          Pageable page);
+
+    // Whole feed for export, read forward-only in fetch-size chunks; caller holds a read-only transaction
+    // and must close the stream
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT o.orderId AS orderId, o.orderNumber AS orderNumber, c.firstName AS firstName, " +
+           "c.lastName AS lastName, SUM(oi.subtotal) AS amount, o.status AS status, o.createdAt AS createdAt " +
+           "FROM OrderItem oi JOIN oi.order o JOIN o.customer c " +
+           "WHERE oi.variant.product.seller.sellerId = :sellerId " +
+           "AND (:status IS NULL OR o.status = :status) " +
+           "GROUP BY o.orderId, o.orderNumber, c.firstName, c.lastName, o.status, o.createdAt " +
+           "ORDER BY o.orderId DESC")
+    Stream<SellerOrderRow> streamSellerOrders(@Param("sellerId") Long sellerId, @Param("status") String status);
 }
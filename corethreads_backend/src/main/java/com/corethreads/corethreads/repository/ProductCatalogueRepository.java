@@ -0,0 +1,110 @@
+package com.corethreads.corethreads.repository;
+
+import com.corethreads.corethreads.entity.Product;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset (seek) pagination over the product catalogue.
+ * Page N costs the same as page 1 because each page resumes from the last row's sort key
+ * instead of skipping an OFFSET.
+ */
+public interface ProductCatalogueRepository {
+
+    List<Product> findCataloguePage(Filter filter, Sort sort, Cursor after, int limit);
+
+    // Same page as scalar listing columns plus the keyset keys; no entity is hydrated
+    List<SummaryRow> findCatalogueSummaryPage(Filter filter, Sort sort, Cursor after, int limit);
+
+    long countCatalogue(Filter filter);
+
+    // Optional filters; null means "do not filter"
+    record Filter(boolean activeOnly, Long categoryId) {}
+
+    enum Sort {
+        NEWEST, OLDEST, PRICE_ASC, PRICE_DESC;
+
+        public static Sort parse(String value) {
+            if (value == null || value.isBlank()) {
+                return NEWEST;
+            }
+            try {
+                return Sort.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unknown sort: " + value);
+            }
+        }
+
+        public boolean byPrice() {
+            return this == PRICE_ASC || this == PRICE_DESC;
+        }
+
+        public boolean descending() {
+            return this == NEWEST || this == PRICE_DESC;
+        }
+    }
+
+    // One product of a summary page, with its seller's ids and store name
+    record SummaryRow(Long productId, String name, String description, String productCode,
+                      Long sellerId, Long sellerCustomerId, String sellerStoreName,
+                      LocalDateTime createdAt, BigDecimal price) {
+
+        public static SummaryRow of(Product p) {
+            Long sellerId = null;
+            Long sellerCustomerId = null;
+            String sellerStoreName = null;
+            if (p.getSeller() != null) {
+                sellerId = p.getSeller().getSellerId();
+                sellerStoreName = p.getSeller().getStoreName();
+                if (p.getSeller().getCustomer() != null) {
+                    sellerCustomerId = p.getSeller().getCustomer().getCustomerId();
+                }
+            }
+            return new SummaryRow(p.getProductId(), p.getName(), p.getDescription(), p.getProductCode(),
+                    sellerId, sellerCustomerId, sellerStoreName, p.getCreatedAt(), p.getPrice());
+        }
+    }
+
+    /**
+     * Position of the last row of a page: its sort key plus product id as tie-breaker.
+     * Serialised as an opaque URL-safe token.
+     */
+    record Cursor(Sort sort, LocalDateTime createdAt, BigDecimal price, Long productId) {
+
+        public static Cursor of(Sort sort, Product last) {
+            BigDecimal price = last.getPrice() != null ? last.getPrice() : BigDecimal.ZERO;
+            return new Cursor(sort, last.getCreatedAt(), price, last.getProductId());
+        }
+
+        public static Cursor of(Sort sort, SummaryRow last) {
+            BigDecimal price = last.price() != null ? last.price() : BigDecimal.ZERO;
+            return new Cursor(sort, last.createdAt(), price, last.productId());
+        }
+
+        public String encode() {
+            String key = sort.byPrice() ? price.toPlainString() : createdAt.toString();
+            String raw = sort.name() + "|" + key + "|" + productId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String token, Sort expected) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|");
+                if (parts.length != 3 || Sort.valueOf(parts[0]) != expected) {
+                    throw new IllegalArgumentException("Cursor does not match sort");
+                }
+                Long id = Long.valueOf(parts[2]);
+                return expected.byPrice()
+                        ? new Cursor(expected, null, new BigDecimal(parts[1]), id)
+                        : new Cursor(expected, LocalDateTime.parse(parts[1]), null, id);
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("Invalid cursor", ex);
+            }
+        }
+    }
+}
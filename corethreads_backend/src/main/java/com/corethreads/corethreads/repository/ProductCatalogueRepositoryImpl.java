@@ -0,0 +1,103 @@
+package com.corethreads.corethreads.repository;
+
+import com.corethreads.corethreads.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JPQL implementation of {@link ProductCatalogueRepository}.
+ * The entity page fetch-joins seller, owning customer and category so it is a single select;
+ * the summary page selects scalar columns only, so nothing is hydrated or put in the persistence context.
+ */
+public class ProductCatalogueRepositoryImpl implements ProductCatalogueRepository {
+
+    private static final String PRICE_KEY = "COALESCE(p.price, 0)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Product> findCataloguePage(Filter filter, Sort sort, Cursor after, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT p FROM Product p ")
+                .append("LEFT JOIN FETCH p.seller s LEFT JOIN FETCH s.customer LEFT JOIN FETCH p.categories ");
+        Map<String, Object> params = new HashMap<>();
+        appendPage(jpql, params, filter, sort, after);
+
+        TypedQuery<Product> query = entityManager.createQuery(jpql.toString(), Product.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<SummaryRow> findCatalogueSummaryPage(Filter filter, Sort sort, Cursor after, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT p.productId AS productId, p.name AS name, ")
+                .append("p.description AS description, p.productCode AS productCode, s.sellerId AS sellerId, ")
+                .append("c.customerId AS sellerCustomerId, s.storeName AS sellerStoreName, ")
+                .append("p.createdAt AS createdAt, p.price AS price ")
+                .append("FROM Product p LEFT JOIN p.seller s LEFT JOIN s.customer c ");
+        Map<String, Object> params = new HashMap<>();
+        appendPage(jpql, params, filter, sort, after);
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class);
+        params.forEach(query::setParameter);
+        List<Tuple> tuples = query.setMaxResults(limit).getResultList();
+        List<SummaryRow> rows = new ArrayList<>(tuples.size());
+        for (Tuple t : tuples) {
+            rows.add(new SummaryRow(t.get("productId", Long.class), t.get("name", String.class),
+                    t.get("description", String.class), t.get("productCode", String.class),
+                    t.get("sellerId", Long.class), t.get("sellerCustomerId", Long.class),
+                    t.get("sellerStoreName", String.class), t.get("createdAt", LocalDateTime.class),
+                    t.get("price", BigDecimal.class)));
+        }
+        return rows;
+    }
+
+    @Override
+    public long countCatalogue(Filter filter) {
+        StringBuilder jpql = new StringBuilder("SELECT COUNT(p) FROM Product p ");
+        Map<String, Object> params = new HashMap<>();
+        appendFilter(jpql, params, filter);
+
+        TypedQuery<Long> query = entityManager.createQuery(jpql.toString(), Long.class);
+        params.forEach(query::setParameter);
+        return query.getSingleResult();
+    }
+
+    // Filter, keyset predicate and the matching ORDER BY
+    private void appendPage(StringBuilder jpql, Map<String, Object> params, Filter filter, Sort sort, Cursor after) {
+        appendFilter(jpql, params, filter);
+
+        if (after != null) {
+            String op = sort.descending() ? "<" : ">";
+            String key = sort.byPrice() ? PRICE_KEY : "p.createdAt";
+            jpql.append(" AND (").append(key).append(' ').append(op).append(" :afterKey")
+                .append(" OR (").append(key).append(" = :afterKey AND p.productId ").append(op).append(" :afterId))");
+            params.put("afterKey", sort.byPrice() ? after.price() : after.createdAt());
+            params.put("afterId", after.productId());
+        }
+
+        String dir = sort.descending() ? " DESC" : " ASC";
+        jpql.append(" ORDER BY ").append(sort.byPrice() ? PRICE_KEY : "p.createdAt").append(dir)
+            .append(", p.productId").append(dir);
+    }
+
+    private void appendFilter(StringBuilder jpql, Map<String, Object> params, Filter filter) {
+        jpql.append("WHERE 1 = 1");
+        if (filter.activeOnly()) {
+            jpql.append(" AND p.isActive = true");
+        }
+        if (filter.categoryId() != null) {
+            jpql.append(" AND p.categories.categoriesId = :categoryId");
+            params.put("categoryId", filter.categoryId());
+        }
+    }
+}
@@ -2,8 +2,11 @@ package com.corethreads.corethreads.repository;
 
 import com.corethreads.corethreads.entity.ProductImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,4 +15,29 @@ import org.springframework.data.repository.query.Param;
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
     @Query("SELECT i FROM ProductImage i WHERE i.product.productId = :productId ORDER BY i.displayOrder ASC")
     List<ProductImage> findByProductIdOrderByDisplayOrder(@Param("productId") Long productId);
+
+    // First image per product (lowest display order, then lowest id)
+    interface FirstImage {
+        Long getProductId();
+        String getImageUrl();
+        String getThumbUrl();
+        String getCardUrl();
+        String getDetailUrl();
+    }
+
+    @Query("SELECT i.product.productId AS productId, i.imageUrl AS imageUrl, i.thumbUrl AS thumbUrl, " +
+           "i.cardUrl AS cardUrl, i.detailUrl AS detailUrl FROM ProductImage i " +
+           "WHERE i.product.productId IN :productIds AND NOT EXISTS (SELECT j.imageId FROM ProductImage j WHERE j.product = i.product " +
+           "AND (COALESCE(j.displayOrder, 0) < COALESCE(i.displayOrder, 0) " +
+           "OR (COALESCE(j.displayOrder, 0) = COALESCE(i.displayOrder, 0) AND j.imageId < i.imageId)))")
+    List<FirstImage> findFirstImageByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProductImage i SET i.thumbUrl = :thumbUrl, i.cardUrl = :cardUrl, i.detailUrl = :detailUrl " +
+           "WHERE i.imageId = :imageId")
+    int updateRenditions(@Param("imageId") Long imageId,
+                         @Param("thumbUrl") String thumbUrl,
+                         @Param("cardUrl") String cardUrl,
+                         @Param("detailUrl") String detailUrl);
 }
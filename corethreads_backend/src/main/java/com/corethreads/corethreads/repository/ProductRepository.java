@@ -1,15 +1,23 @@
 package com.corethreads.corethreads.repository;
 
 import com.corethreads.corethreads.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductCatalogueRepository {
     
     // Find products by category (Categories PK is categoriesId mapped to column `id`)
     @Query("SELECT p FROM Product p WHERE p.categories.categoriesId = :categoryId")
@@ -18,10 +26,6 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Search products by name (case-insensitive)
     List<Product> findByNameContainingIgnoreCase(String name);
     
-    // Search products by name or description
-    @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Product> searchByKeyword(@Param("keyword") String keyword);
-    
     // Find active products
     List<Product> findByIsActiveTrue();
     
@@ -34,4 +38,94 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     // Find active products by seller ID
     List<Product> findBySeller_SellerIdAndIsActiveTrue(Long sellerId);
+
+    long countBySeller_SellerIdAndIsActiveTrue(Long sellerId);
+
+    // Columns of the seller's product listing; the image is the first by display order, then id
+    interface SellerListingRow {
+        Long getProductId();
+        String getName();
+        String getDescription();
+        Boolean getActive();
+        String getCategory();
+        BigDecimal getPrice();
+        Long getStock();
+        String getColors();
+        String getProductCode();
+        String getImageUrl();
+        LocalDateTime getCreatedAt();
+    }
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT p.productId AS productId, p.name AS name, p.description AS description, p.isActive AS active, " +
+           "p.category AS category, p.price AS price, p.stock AS stock, p.colors AS colors, p.productCode AS productCode, " +
+           "(SELECT i.imageUrl FROM ProductImage i WHERE i.product = p AND NOT EXISTS (SELECT j.imageId FROM ProductImage j " +
+           "WHERE j.product = p AND (COALESCE(j.displayOrder, 0) < COALESCE(i.displayOrder, 0) " +
+           "OR (COALESCE(j.displayOrder, 0) = COALESCE(i.displayOrder, 0) AND j.imageId < i.imageId)))) AS imageUrl, " +
+           "p.createdAt AS createdAt " +
+           "FROM Product p WHERE p.seller.sellerId = :sellerId AND p.isActive = true ORDER BY p.productId")
+    List<SellerListingRow> findSellerListing(@Param("sellerId") Long sellerId);
+
+    // Flat rows for the seller product export, streamed like OrderItemRepository.streamSellerOrders
+    interface ExportRow {
+        Long getProductId();
+        String getProductCode();
+        String getName();
+        String getCategory();
+        BigDecimal getPrice();
+        Long getStock();
+        Boolean getActive();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+    }
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT p.productId AS productId, p.productCode AS productCode, p.name AS name, p.category AS category, " +
+           "p.price AS price, p.stock AS stock, p.isActive AS active, p.createdAt AS createdAt, p.updatedAt AS updatedAt " +
+           "FROM Product p WHERE p.seller.sellerId = :sellerId ORDER BY p.productId")
+    Stream<ExportRow> streamForExport(@Param("sellerId") Long sellerId);
+
+    // Apply a variant stock delta to the product-level aggregate
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = COALESCE(p.stock, 0) + :delta WHERE p.productId = :productId")
+    int adjustStock(@Param("productId") Long productId, @Param("delta") long delta);
+
+    // Recompute product-level stock from its variants in the database.
+    // Products without variants keep their own stock figure.
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = (SELECT SUM(v.stock) FROM ProductVariant v WHERE v.product = p) " +
+           "WHERE p.productId IN :productIds AND EXISTS (SELECT 1 FROM ProductVariant v WHERE v.product = p)")
+    int syncStockFromVariants(@Param("productIds") Collection<Long> productIds);
+
+    // Same for every product; used for the startup reconcile
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = (SELECT SUM(v.stock) FROM ProductVariant v WHERE v.product = p) " +
+           "WHERE EXISTS (SELECT 1 FROM ProductVariant v WHERE v.product = p)")
+    int syncAllStockFromVariants();
+
+    // One row per variant (or one per product without variants) for the facet index
+    interface FacetRow {
+        Long getProductId();
+        Boolean getActive();
+        Long getCategoryId();
+        String getProductColors();
+        BigDecimal getProductPrice();
+        String getSize();
+        String getColor();
+        BigDecimal getPrice();
+    }
+
+    @Query("SELECT p.productId AS productId, p.isActive AS active, c.categoriesId AS categoryId, " +
+           "p.colors AS productColors, p.price AS productPrice, v.size AS size, v.color AS color, v.price AS price " +
+           "FROM Product p LEFT JOIN p.categories c LEFT JOIN ProductVariant v ON v.product = p " +
+           "ORDER BY p.productId")
+    List<FacetRow> findFacetRows();
+
+    // Same rows for just the given products, to patch the facet index after a write
+    @Query("SELECT p.productId AS productId, p.isActive AS active, c.categoriesId AS categoryId, " +
+           "p.colors AS productColors, p.price AS productPrice, v.size AS size, v.color AS color, v.price AS price " +
+           "FROM Product p LEFT JOIN p.categories c LEFT JOIN ProductVariant v ON v.product = p " +
+           "WHERE p.productId IN :productIds ORDER BY p.productId")
+    List<FacetRow> findFacetRowsByProductIds(@Param("productIds") Collection<Long> productIds);
 }
\ No newline at end of file
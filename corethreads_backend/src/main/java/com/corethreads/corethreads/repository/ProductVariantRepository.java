@@ -2,15 +2,66 @@ package com.corethreads.corethreads.repository;
 
 import com.corethreads.corethreads.entity.ProductVariant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 @Repository
-public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long> {
+public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long>, ProductVariantStockRepository {
     // Use nested property path or explicit JPQL
     @Query("SELECT v FROM ProductVariant v WHERE v.product.productId = :productId")
     List<ProductVariant> findByProductId(@Param("productId") Long productId);
+
+    // Conditional decrement: the affected-row count (0 or 1) is the availability check,
+    // so concurrent buyers can never take the stock below zero. Bumps the version so a stale
+    // entity save of the same variant is rejected rather than restoring the old stock
+    @Modifying
+    @Query("UPDATE ProductVariant v SET v.stock = v.stock - :quantity, v.version = v.version + 1 WHERE v.variantId = :variantId AND v.stock >= :quantity")
+    int decrementStock(@Param("variantId") Long variantId, @Param("quantity") long quantity);
+
+    // Lowest variant price per product, grouped in the database
+    interface MinPrice {
+        Long getProductId();
+        BigDecimal getPrice();
+    }
+
+    @Query("SELECT v.product.productId AS productId, MIN(v.price) AS price FROM ProductVariant v " +
+           "WHERE v.product.productId IN :productIds GROUP BY v.product.productId")
+    List<MinPrice> findMinPriceByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    // Which of these SKUs are already taken (bulk import checks a chunk at a time)
+    @Query("SELECT v.sku FROM ProductVariant v WHERE v.sku IN :skus")
+    List<String> findExistingSkus(@Param("skus") Collection<String> skus);
+
+    // Variant ids and owning product for stock updates, restricted to one seller's catalogue
+    interface VariantRef {
+        Long getVariantId();
+        String getSku();
+        Long getProductId();
+    }
+
+    @Query("SELECT v.variantId AS variantId, v.sku AS sku, v.product.productId AS productId FROM ProductVariant v " +
+           "WHERE v.product.seller.sellerId = :sellerId AND v.sku IN :skus")
+    List<VariantRef> findSellerVariantsBySku(@Param("sellerId") Long sellerId, @Param("skus") Collection<String> skus);
+
+    @Query("SELECT v.variantId AS variantId, v.sku AS sku, v.product.productId AS productId FROM ProductVariant v " +
+           "WHERE v.product.seller.sellerId = :sellerId AND v.variantId IN :variantIds")
+    List<VariantRef> findSellerVariantsById(@Param("sellerId") Long sellerId, @Param("variantIds") Collection<Long> variantIds);
+
+    // Every variant of the seller's active products with the product-level stock, in product then variant order
+    interface VariantStockRow {
+        Long getVariantId();
+        Long getProductId();
+        Long getProductStock();
+    }
+
+    @Query("SELECT v.variantId AS variantId, p.productId AS productId, p.stock AS productStock " +
+           "FROM ProductVariant v JOIN v.product p WHERE p.seller.sellerId = :sellerId AND p.isActive = true " +
+           "ORDER BY p.productId, v.variantId")
+    List<VariantStockRow> findActiveVariantStockBySeller(@Param("sellerId") Long sellerId);
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.corethreads.corethreads.repository;
+
+import java.util.List;
+
+/**
+ * Set-based stock writes: many variants in one UPDATE instead of one entity save each.
+ */
+public interface ProductVariantStockRepository {
+
+    /**
+     * New stock = max(0, multiplier * current + addend): an absolute value is (0, value),
+     * a delta is (1, delta).
+     */
+    record StockChange(Long variantId, long multiplier, long addend) {
+        public static StockChange absolute(Long variantId, long value) {
+            return new StockChange(variantId, 0, value);
+        }
+
+        public static StockChange delta(Long variantId, long delta) {
+            return new StockChange(variantId, 1, delta);
+        }
+    }
+
+    /**
+     * Applies the changes with a single UPDATE ... CASE and bumps each row's version, so a stale
+     * entity save of the same variant is rejected. Must run in a transaction. Each statement takes
+     * at most 512 changes (three bind parameters each); longer lists are split. Returns the number
+     * of rows updated.
+     */
+    int applyStockChanges(List<StockChange> changes);
+}
@@ -0,0 +1,66 @@
+package com.corethreads.corethreads.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * JPQL implementation of {@link ProductVariantStockRepository}.
+ * The statement text depends only on its number of WHEN branches, so each batch is padded up to a
+ * power of two by repeating its last change (a repeated WHEN never matches, the IN list just
+ * repeats an id). A handful of statement shapes then cover every batch size, and Hibernate's query
+ * plan cache keeps hitting instead of parsing a new statement per chunk length.
+ */
+public class ProductVariantStockRepositoryImpl implements ProductVariantStockRepository {
+
+    private static final int MIN_BRANCHES = 16;
+    private static final int MAX_BRANCHES = 512;
+
+    // JPQL per padded size
+    private static final ConcurrentMap<Integer, String> STATEMENTS = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int applyStockChanges(List<StockChange> changes) {
+        int updated = 0;
+        for (int from = 0; from < changes.size(); from += MAX_BRANCHES) {
+            updated += apply(changes.subList(from, Math.min(changes.size(), from + MAX_BRANCHES)));
+        }
+        return updated;
+    }
+
+    private int apply(List<StockChange> changes) {
+        int size = paddedSize(changes.size());
+        Query query = entityManager.createQuery(STATEMENTS.computeIfAbsent(size, ProductVariantStockRepositoryImpl::statement));
+        List<Long> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StockChange change = changes.get(Math.min(i, changes.size() - 1));
+            query.setParameter("id" + i, change.variantId());
+            query.setParameter("m" + i, change.multiplier());
+            query.setParameter("a" + i, change.addend());
+            ids.add(change.variantId());
+        }
+        query.setParameter("ids", ids);
+        return query.executeUpdate();
+    }
+
+    static int paddedSize(int size) {
+        return Math.max(MIN_BRANCHES, Integer.highestOneBit(Math.max(1, size - 1)) << 1);
+    }
+
+    private static String statement(int branches) {
+        StringBuilder jpql = new StringBuilder("UPDATE ProductVariant v SET v.stock = CASE v.variantId");
+        for (int i = 0; i < branches; i++) {
+            jpql.append(" WHEN :id").append(i)
+                .append(" THEN greatest(:m").append(i).append(" * v.stock + :a").append(i).append(", 0L)");
+        }
+        return jpql.append(" ELSE v.stock END, v.version = v.version + 1 WHERE v.variantId IN :ids").toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.corethreads.corethreads.repository;
+
+import com.corethreads.corethreads.entity.SellerDailySales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SellerDailySalesRepository extends JpaRepository<SellerDailySales, Long> {
+
+    // Insert-or-increment in one statement, so concurrent checkouts never race on creating the day's row.
+    // Joins the caller's transaction: the rollup commits or rolls back with the order.
+    @Modifying
+    @Query(value = "INSERT INTO seller_daily_sales (seller_id, product_id, sales_date, units, revenue, order_count) " +
+                   "VALUES (:sellerId, :productId, :salesDate, :units, :revenue, :orders) " +
+                   "ON DUPLICATE KEY UPDATE units = units + VALUES(units), revenue = revenue + VALUES(revenue), " +
+                   "order_count = order_count + VALUES(order_count)",
+           nativeQuery = true)
+    int addSales(@Param("sellerId") Long sellerId,
+                 @Param("productId") Long productId,
+                 @Param("salesDate") LocalDate salesDate,
+                 @Param("units") long units,
+                 @Param("revenue") BigDecimal revenue,
+                 @Param("orders") long orders);
+
+    interface DayTotal {
+        LocalDate getSalesDate();
+        Long getUnits();
+        BigDecimal getRevenue();
+        Long getOrderCount();
+    }
+
+    // Sums the day-total slots (negative product ids); a short range of the unique key per slot
+    @Query("SELECT s.salesDate AS salesDate, SUM(s.units) AS units, SUM(s.revenue) AS revenue, " +
+           "SUM(s.orderCount) AS orderCount FROM SellerDailySales s " +
+           "WHERE s.sellerId = :sellerId AND s.productId < 0 AND s.salesDate BETWEEN :from AND :to " +
+           "GROUP BY s.salesDate ORDER BY s.salesDate")
+    List<DayTotal> sumDayTotals(@Param("sellerId") Long sellerId,
+                                @Param("from") LocalDate from,
+                                @Param("to") LocalDate to);
+
+    interface ProductTotal {
+        Long getProductId();
+        Long getUnits();
+        BigDecimal getRevenue();
+        Long getOrderCount();
+    }
+
+    @Query("SELECT s.productId AS productId, SUM(s.units) AS units, SUM(s.revenue) AS revenue, " +
+           "SUM(s.orderCount) AS orderCount FROM SellerDailySales s " +
+           "WHERE s.sellerId = :sellerId AND s.productId > 0 " +
+           "AND s.salesDate BETWEEN :from AND :to " +
+           "GROUP BY s.productId ORDER BY SUM(s.revenue) DESC")
+    List<ProductTotal> sumByProduct(@Param("sellerId") Long sellerId,
+                                    @Param("from") LocalDate from,
+                                    @Param("to") LocalDate to);
+}
@@ -75,7 +75,6 @@ public class CartService {
     public void clearCart(Long customerId) {
         Cart cart = cartRepository.findByCustomerCustomerId(customerId)
                 .orElseThrow(() -> new RuntimeException("Cart not found"));
-        cartItemRepository.findByCartCartId(cart.getCartId())
-                .forEach(item -> cartItemRepository.deleteById(item.getCartItemId()));
+        cartItemRepository.deleteAllByCartId(cart.getCartId());
     }
 }
@@ -0,0 +1,136 @@
+package com.corethreads.corethreads.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers checkout outcomes by (customer, Idempotency-Key) so a client retry replays the first
+ * result instead of charging again. A retry that arrives while the first attempt is still running
+ * waits for it. Entries expire after a fixed TTL, and the store is capped at a fixed number of keys.
+ * Everything is in memory, so a key is only honoured by the instance that first saw it.
+ */
+@Component
+public class CheckoutIdempotencyStore {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final long inFlightWaitMillis;
+
+    // Insertion order == expiry order (constant TTL), so expired entries are always at the head
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    public record Outcome(OrderService.CheckoutResult result, boolean replayed) {}
+
+    private record Entry(String requestHash, CompletableFuture<OrderService.CheckoutResult> result, long expiresAt) {}
+
+    public CheckoutIdempotencyStore(@Value("${checkout.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                                    @Value("${checkout.idempotency.max-entries:10000}") int maxEntries,
+                                    @Value("${checkout.idempotency.in-flight-wait-ms:10000}") long inFlightWaitMillis) {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.maxEntries = maxEntries;
+        this.inFlightWaitMillis = inFlightWaitMillis;
+    }
+
+    /**
+     * Runs the checkout once per key. Without a key the checkout simply runs.
+     * Reusing a key for a different basket is rejected with 422.
+     */
+    public Outcome execute(Long customerId, String idempotencyKey, List<OrderService.CheckoutItem> items,
+                           Supplier<OrderService.CheckoutResult> checkout) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return new Outcome(checkout.get(), false);
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key is too long");
+        }
+
+        String storeKey = customerId + ":" + idempotencyKey;
+        String requestHash = hash(items);
+        Entry mine = new Entry(requestHash, new CompletableFuture<>(), System.currentTimeMillis() + ttlMillis);
+        Entry existing;
+        synchronized (entries) {
+            purge(System.currentTimeMillis());
+            existing = entries.get(storeKey);
+            if (existing == null) {
+                entries.put(storeKey, mine);
+            }
+        }
+
+        if (existing != null) {
+            if (!existing.requestHash().equals(requestHash)) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency-Key was already used for a different checkout");
+            }
+            return new Outcome(await(existing), true);
+        }
+
+        try {
+            OrderService.CheckoutResult result = checkout.get();
+            mine.result().complete(result);
+            return new Outcome(result, false);
+        } catch (RuntimeException ex) {
+            // Nothing was committed, so forget the key and let the client try again
+            synchronized (entries) {
+                entries.remove(storeKey, mine);
+            }
+            mine.result().completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private OrderService.CheckoutResult await(Entry entry) {
+        try {
+            return entry.result().get(inFlightWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A checkout with this Idempotency-Key is still in progress or failed; retry shortly");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+        }
+    }
+
+    // Caller holds the lock. Expired entries go first; over capacity the oldest completed ones follow.
+    // A checkout still in flight is never evicted for capacity, or its retry would run it a second time,
+    // so the store can briefly exceed maxEntries by the number of concurrent checkouts.
+    private void purge(long now) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (entry.expiresAt() <= now) {
+                it.remove();
+            } else if (entries.size() < maxEntries) {
+                break;
+            } else if (entry.result().isDone()) {
+                it.remove();
+            }
+        }
+    }
+
+    private static String hash(List<OrderService.CheckoutItem> items) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(String.valueOf(items).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
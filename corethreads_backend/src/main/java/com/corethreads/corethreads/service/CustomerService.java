@@ -2,11 +2,11 @@ package com.corethreads.corethreads.service;
 
 import com.corethreads.corethreads.entity.Customer;
 import com.corethreads.corethreads.repository.CustomerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Optional;
@@ -14,10 +14,14 @@ import java.util.Optional;
 @Service
 public class CustomerService {
 
+    private static final Logger log = LoggerFactory.getLogger(CustomerService.class);
+
     @Autowired
     private CustomerRepository customerRepository;
 
-    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    // BCrypt runs on its own bounded pool, never on the request thread
+    @Autowired
+    private PasswordHasher passwordHasher;
 
     /**
      * Registers a new customer applying basic password policy and hashing.
@@ -58,7 +62,7 @@ public class CustomerService {
         }
 
         // Hash password before saving
-        customer.setPassword(passwordEncoder.encode(raw));
+        customer.setPassword(passwordHasher.encode(raw));
         return customerRepository.save(customer);
     }
 
@@ -67,9 +71,25 @@ public class CustomerService {
      * Returns the customer if login is successful.
      */
     public Customer login(String username, String password) {
-        return customerRepository.findByUsername(username)
-                .filter(c -> passwordEncoder.matches(password, c.getPassword()))
+        Customer customer = customerRepository.findByUsername(username)
+                .filter(c -> passwordHasher.matches(password, c.getPassword()))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid credentials"));
+        if (passwordHasher.needsRehash(customer.getPassword())) {
+            rehash(customer, password);
+        }
+        return customer;
+    }
+
+    // Brings a hash made with an older cost up to the current one; a failure here never fails the login
+    private void rehash(Customer customer, String password) {
+        try {
+            String hash = passwordHasher.encode(password);
+            // Column update only, so a concurrent balance write does not hit a version conflict
+            customerRepository.updatePassword(customer.getCustomerId(), hash);
+            customer.setPassword(hash);
+        } catch (RuntimeException ex) {
+            log.debug("Deferred password rehash for customerId {}: {}", customer.getCustomerId(), ex.getMessage());
+        }
     }
 
     /**
@@ -142,7 +162,7 @@ public class CustomerService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer not found"));
 
         // ✅ SECURITY FIX: Validate old password (CWE-257)
-        if (!passwordEncoder.matches(oldPassword, customer.getPassword())) {
+        if (!passwordHasher.matches(oldPassword, customer.getPassword())) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Current password is incorrect");
         }
 
@@ -171,7 +191,7 @@ public class CustomerService {
         }
 
         // ✅ SECURITY FIX: Hash and save new password (CWE-256)
-        customer.setPassword(passwordEncoder.encode(newPassword));
+        customer.setPassword(passwordHasher.encode(newPassword));
         return customerRepository.save(customer);
     }
 }
@@ -0,0 +1,246 @@
+package com.corethreads.corethreads.service;
+
+import com.corethreads.corethreads.entity.ProductImage;
+import com.corethreads.corethreads.repository.ProductImageRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Produces downsized, recompressed copies (thumb, card, detail) of uploaded product images on a
+ * small bounded pool, so uploads return immediately and storefront grids stop fetching full-size
+ * originals. Renditions go into the {@link ImageStore} and their URLs onto the ProductImage row.
+ * Until a job has run, or when the queue is full, readers keep using the original.
+ */
+@Service
+public class ImageRenditionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageRenditionService.class);
+
+    // Longest edge in pixels; smaller originals are never upscaled
+    public enum Rendition {
+        THUMB(200), CARD(480), DETAIL(1200);
+
+        private final int size;
+
+        Rendition(int size) {
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    private final ImageStore imageStore;
+    private final ProductImageRepository productImageRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final float jpegQuality;
+    private final long maxPixels;
+
+    private final ArrayBlockingQueue<Runnable> queue;
+    private final ThreadPoolExecutor executor;
+
+    public ImageRenditionService(ImageStore imageStore,
+                                 ProductImageRepository productImageRepository,
+                                 ApplicationEventPublisher eventPublisher,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${images.renditions.threads:2}") int threads,
+                                 @Value("${images.renditions.queue-capacity:100}") int queueCapacity,
+                                 @Value("${images.renditions.jpeg-quality:0.82}") float jpegQuality,
+                                 @Value("${images.renditions.max-pixels:40000000}") long maxPixels) {
+        this.imageStore = imageStore;
+        this.productImageRepository = productImageRepository;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, r -> {
+            Thread t = new Thread(r, "image-rendition-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        Gauge.builder("images.renditions.queue.depth", queue, ArrayBlockingQueue::size)
+                .description("Rendition jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("images.renditions.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Rendition jobs currently running")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Queues rendition generation for a saved image. Returns false when the queue is full; the image
+     * is still served, just at full size.
+     */
+    public boolean enqueue(Long imageId) {
+        try {
+            executor.execute(() -> render(imageId));
+            return true;
+        } catch (RejectedExecutionException ex) {
+            log.warn("Rendition queue full, image {} will be served at full size", imageId);
+            meterRegistry.counter("images.renditions.rejected").increment();
+            return false;
+        }
+    }
+
+    /**
+     * Smallest URL that is at least minSize pixels on its longest edge. Missing renditions are
+     * skipped; the original is the fallback when none is big enough.
+     */
+    public static String pick(int minSize, String original, String thumbUrl, String cardUrl, String detailUrl) {
+        String[] urls = {thumbUrl, cardUrl, detailUrl};
+        for (Rendition r : Rendition.values()) {
+            if (r.size() >= minSize && urls[r.ordinal()] != null) {
+                return urls[r.ordinal()];
+            }
+        }
+        return original;
+    }
+
+    private void render(Long imageId) {
+        long started = System.nanoTime();
+        String outcome = "ok";
+        try {
+            ProductImage image = productImageRepository.findById(imageId).orElse(null);
+            Optional<Path> original = image == null ? Optional.empty() : imageStore.resolve(storedName(image.getImageUrl()));
+            BufferedImage source = original.isPresent() ? read(original.get()) : null;
+            if (source == null) {
+                outcome = "skipped";
+                return;
+            }
+
+            String[] urls = new String[Rendition.values().length];
+            for (Rendition r : Rendition.values()) {
+                urls[r.ordinal()] = resize(source, r.size(), image.getImageUrl());
+            }
+            productImageRepository.updateRenditions(imageId, urls[0], urls[1], urls[2]);
+            eventPublisher.publishEvent(new ProductChangedEvent(image.getProduct()));
+        } catch (Exception ex) {
+            outcome = "failed";
+            log.warn("Rendition generation failed for image {}", imageId, ex);
+        } finally {
+            Timer.builder("images.renditions.duration")
+                    .description("Time to generate all renditions of one image")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Decodes the image unless it has no ImageIO reader (e.g. WebP) or is too large to hold in memory
+    private BufferedImage read(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    log.warn("Skipping renditions for {}: {}x{} exceeds the pixel limit",
+                            file.getFileName(), reader.getWidth(0), reader.getHeight(0));
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private String resize(BufferedImage source, int size, String originalUrl) throws IOException {
+        int w = source.getWidth();
+        int h = source.getHeight();
+        if (Math.max(w, h) <= size) {
+            return originalUrl;
+        }
+        double scale = (double) size / Math.max(w, h);
+        int targetW = Math.max(1, (int) Math.round(w * scale));
+        int targetH = Math.max(1, (int) Math.round(h * scale));
+        boolean alpha = source.getColorModel().hasAlpha();
+
+        // Halve in steps first; a single bilinear pass over a large ratio aliases badly
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= targetW && current.getHeight() / 2 >= targetH) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, alpha);
+        }
+        current = draw(current, targetW, targetH, alpha);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(current, "png", bytes);
+        } else {
+            writeJpeg(current, bytes);
+        }
+        return "/images/" + imageStore.store(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, boolean alpha) {
+        BufferedImage target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private void writeJpeg(BufferedImage image, ByteArrayOutputStream bytes) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String storedName(String imageUrl) {
+        return imageUrl == null ? null : imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+    }
+}
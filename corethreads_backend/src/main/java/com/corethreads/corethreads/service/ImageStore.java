@@ -0,0 +1,159 @@
+package com.corethreads.corethreads.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed image files on local disk, outside the classpath so uploads survive rebuilds.
+ * A stored image is named by the SHA-256 of its bytes plus an extension and sharded by the first two
+ * hex digits (root/ab/ab12...ef.png). Names never get new content, so they can be cached forever,
+ * and uploading the same bytes twice keeps one copy.
+ */
+@Component
+public class ImageStore {
+
+    private static final Pattern STORED_NAME = Pattern.compile("^[0-9a-f]{64}\\.(png|jpg|gif|webp)$");
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "png", "image/png",
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "gif", "image/gif",
+            "webp", "image/webp");
+
+    // Longest signature we check (RIFF....WEBP)
+    private static final int SNIFF_LENGTH = 12;
+
+    private final Path root;
+    private final long maxBytes;
+
+    public ImageStore(@Value("${images.store.root:${user.home}/.corethreads/images}") String root,
+                      @Value("${images.upload.max-bytes:10485760}") long maxBytes) throws IOException {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        Files.createDirectories(this.root.resolve("tmp"));
+    }
+
+    // --- Is this a name the store hands out (hash + known extension)? ---
+    public static boolean isStoredName(String filename) {
+        return filename != null && STORED_NAME.matcher(filename).matches();
+    }
+
+    public static String contentTypeOf(String filename) {
+        int dot = filename.lastIndexOf('.');
+        String ext = dot < 0 ? "" : filename.substring(dot + 1).toLowerCase();
+        return CONTENT_TYPES.getOrDefault(ext, "application/octet-stream");
+    }
+
+    /**
+     * Streams the content to a temp file while hashing it, then moves it into place under its hash.
+     * The type comes from the leading bytes, not from what the client declared, and the size cap is
+     * checked as bytes arrive, so neither needs the whole upload in memory.
+     * Returns the stored file name, e.g. "9f86d0...0f00a08.png".
+     */
+    public String store(InputStream content) throws IOException {
+        byte[] buffer = new byte[8192];
+        int head = content.readNBytes(buffer, 0, SNIFF_LENGTH);
+        String ext = sniff(buffer, head);
+        if (ext == null) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Unsupported image type");
+        }
+
+        Path tmp = Files.createTempFile(root.resolve("tmp"), "upload-", ".part");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                long total = head;
+                digest.update(buffer, 0, head);
+                out.write(buffer, 0, head);
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    total += read;
+                    if (total > maxBytes) {
+                        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                "Image exceeds " + maxBytes + " bytes");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            String name = HexFormat.of().formatHex(digest.digest()) + "." + ext;
+            Path target = pathOf(name);
+            if (Files.exists(target)) {
+                return name;
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException raced) {
+                // Another upload of the same bytes won the move
+                if (!Files.exists(target)) {
+                    throw raced;
+                }
+            }
+            return name;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // Extension for the image format whose signature starts the content, or null
+    static String sniff(byte[] head, int length) {
+        if (startsWith(head, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "png";
+        }
+        if (startsWith(head, length, 0xFF, 0xD8, 0xFF)) {
+            return "jpg";
+        }
+        if (startsWith(head, length, 'G', 'I', 'F', '8')) {
+            return "gif";
+        }
+        if (startsWith(head, length, 'R', 'I', 'F', 'F') && length >= 12
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return "webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, int length, int... signature) {
+        if (length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((head[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // --- Path of a stored image, if it exists ---
+    public Optional<Path> resolve(String filename) {
+        if (!isStoredName(filename)) {
+            return Optional.empty();
+        }
+        Path path = pathOf(filename);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private Path pathOf(String name) {
+        return root.resolve(name.substring(0, 2)).resolve(name);
+    }
+}
@@ -0,0 +1,220 @@
+package com.corethreads.corethreads.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts failed logins per (username, address) pair, per username and per client address over a
+ * sliding window, so repeat offenders are turned away before the customer lookup and the BCrypt
+ * compare. The tight limit is on the pair: guessing at one account from one address blocks only that
+ * address, and the account's owner can still sign in from elsewhere. The username-only limit is much
+ * higher and only catches guessing spread over many addresses. The window is split
+ * into fixed time buckets (a ring of ints per key); keys live in striped, size-capped LRU maps, so
+ * memory stays bounded however many usernames or addresses an attacker cycles through.
+ */
+@Component
+public class LoginAttemptTracker {
+
+    private static final int STRIPES = 64;
+
+    private final SlidingWindowCounter byPair;
+    private final SlidingWindowCounter byUsername;
+    private final SlidingWindowCounter byAddress;
+    private final int maxPerPair;
+    private final int maxPerUsername;
+    private final int maxPerAddress;
+    private final long bucketMillis;
+
+    private final Counter failures;
+    private final Counter blockedByPair;
+    private final Counter blockedByUsername;
+    private final Counter blockedByAddress;
+
+    public LoginAttemptTracker(MeterRegistry meterRegistry,
+                               @Value("${security.login.window-seconds:900}") long windowSeconds,
+                               @Value("${security.login.buckets:15}") int buckets,
+                               @Value("${security.login.max-failures-per-user-address:5}") int maxPerPair,
+                               @Value("${security.login.max-failures-per-user:100}") int maxPerUsername,
+                               @Value("${security.login.max-failures-per-address:20}") int maxPerAddress,
+                               @Value("${security.login.max-tracked-keys:100000}") int maxKeys) {
+        this.bucketMillis = Math.max(1, TimeUnit.SECONDS.toMillis(windowSeconds) / buckets);
+        this.byPair = new SlidingWindowCounter(buckets, bucketMillis, maxKeys);
+        this.byUsername = new SlidingWindowCounter(buckets, bucketMillis, maxKeys);
+        this.byAddress = new SlidingWindowCounter(buckets, bucketMillis, maxKeys);
+        this.maxPerPair = maxPerPair;
+        this.maxPerUsername = maxPerUsername;
+        this.maxPerAddress = maxPerAddress;
+
+        this.failures = Counter.builder("security.login.failures").register(meterRegistry);
+        this.blockedByPair = Counter.builder("security.login.blocked").tag("key", "username_address").register(meterRegistry);
+        this.blockedByUsername = Counter.builder("security.login.blocked").tag("key", "username").register(meterRegistry);
+        this.blockedByAddress = Counter.builder("security.login.blocked").tag("key", "address").register(meterRegistry);
+        Gauge.builder("security.login.tracked", byPair, SlidingWindowCounter::size).tag("key", "username_address").register(meterRegistry);
+        Gauge.builder("security.login.tracked", byUsername, SlidingWindowCounter::size).tag("key", "username").register(meterRegistry);
+        Gauge.builder("security.login.tracked", byAddress, SlidingWindowCounter::size).tag("key", "address").register(meterRegistry);
+    }
+
+    // --- True if this pair, username or address has used up its failures for the window ---
+    public boolean isBlocked(String username, String address) {
+        long now = System.currentTimeMillis();
+        if (byAddress.total(address, now) >= maxPerAddress) {
+            blockedByAddress.increment();
+            return true;
+        }
+        if (byPair.total(pairKey(username, address), now) >= maxPerPair) {
+            blockedByPair.increment();
+            return true;
+        }
+        if (byUsername.total(normalize(username), now) >= maxPerUsername) {
+            blockedByUsername.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public void recordFailure(String username, String address) {
+        long now = System.currentTimeMillis();
+        failures.increment();
+        byPair.increment(pairKey(username, address), now);
+        byUsername.increment(normalize(username), now);
+        byAddress.increment(address, now);
+    }
+
+    // The account's counters reset on success; the address keeps its history
+    public void recordSuccess(String username, String address) {
+        byPair.remove(pairKey(username, address));
+        byUsername.remove(normalize(username));
+    }
+
+    // Seconds until the oldest bucket leaves the window, a lower bound on when a retry can succeed
+    public long retryAfterSeconds() {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(bucketMillis));
+    }
+
+    private static String normalize(String username) {
+        return username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Newline cannot appear in a remote address, so distinct pairs never collide
+    private static String pairKey(String username, String address) {
+        return address == null ? null : normalize(username) + '\n' + address;
+    }
+
+    /**
+     * Per-key ring of bucket counts. Each stripe is an access-ordered map capped at maxKeys / STRIPES,
+     * guarded by its own lock, so unrelated keys rarely contend.
+     */
+    static final class SlidingWindowCounter {
+
+        private final int buckets;
+        private final long bucketMillis;
+        private final Map<String, Window>[] stripes;
+
+        @SuppressWarnings("unchecked")
+        SlidingWindowCounter(int buckets, long bucketMillis, int maxKeys) {
+            this.buckets = buckets;
+            this.bucketMillis = bucketMillis;
+            int perStripe = Math.max(1, maxKeys / STRIPES);
+            this.stripes = new Map[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+                        return size() > perStripe;
+                    }
+                };
+            }
+        }
+
+        int total(String key, long now) {
+            if (key == null) {
+                return 0;
+            }
+            Map<String, Window> stripe = stripeOf(key);
+            synchronized (stripe) {
+                Window w = stripe.get(key);
+                return w == null ? 0 : w.total(now / bucketMillis);
+            }
+        }
+
+        void increment(String key, long now) {
+            if (key == null) {
+                return;
+            }
+            Map<String, Window> stripe = stripeOf(key);
+            synchronized (stripe) {
+                stripe.computeIfAbsent(key, k -> new Window(buckets)).add(now / bucketMillis);
+            }
+        }
+
+        void remove(String key) {
+            Map<String, Window> stripe = stripeOf(key);
+            synchronized (stripe) {
+                stripe.remove(key);
+            }
+        }
+
+        int size() {
+            int size = 0;
+            for (Map<String, Window> stripe : stripes) {
+                synchronized (stripe) {
+                    size += stripe.size();
+                }
+            }
+            return size;
+        }
+
+        private Map<String, Window> stripeOf(String key) {
+            int h = key.hashCode();
+            return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+        }
+    }
+
+    // Caller holds the stripe lock
+    private static final class Window {
+        private final int[] counts;
+        private long lastBucket = Long.MIN_VALUE;
+
+        Window(int buckets) {
+            this.counts = new int[buckets];
+        }
+
+        void add(long bucket) {
+            advance(bucket);
+            counts[(int) (bucket % counts.length)]++;
+        }
+
+        int total(long bucket) {
+            advance(bucket);
+            int total = 0;
+            for (int c : counts) {
+                total += c;
+            }
+            return total;
+        }
+
+        // Zero the buckets that fell out of the window since the last touch
+        private void advance(long bucket) {
+            if (bucket <= lastBucket) {
+                return;
+            }
+            if (lastBucket == Long.MIN_VALUE || bucket - lastBucket >= counts.length) {
+                Arrays.fill(counts, 0);
+            } else {
+                for (long b = lastBucket + 1; b <= bucket; b++) {
+                    counts[(int) (b % counts.length)] = 0;
+                }
+            }
+            lastBucket = bucket;
+        }
+    }
+}
@@ -10,21 +10,34 @@ import com.corethreads.corethreads.repository.OrderItemRepository;
 import com.corethreads.corethreads.repository.ProductRepository;
 import com.corethreads.corethreads.repository.ProductVariantRepository;
 import com.corethreads.corethreads.repository.CustomerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class OrderService {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderService.class);
+
     private final OrderRepository orderRepository;
 
     @Autowired
@@ -39,8 +52,58 @@ public class OrderService {
     @Autowired
     private OrderItemRepository orderItemRepository;
 
-    public OrderService(OrderRepository orderRepository) {
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Value("${checkout.retry.max-attempts:5}")
+    private int maxCheckoutAttempts;
+
+    @Value("${checkout.retry.base-backoff-micros:500}")
+    private long baseBackoffMicros;
+
+    @Value("${checkout.retry.max-backoff-micros:20000}")
+    private long maxBackoffMicros;
+
+    // Per-step checkout timings (checkout.step{step=...}) and outcomes (checkout.result{outcome=...})
+    private final Timer validateTimer;
+    private final Timer reserveTimer;
+    private final Timer persistTimer;
+    private final Timer balanceTimer;
+    private final Counter placedCounter;
+    private final Counter rejectedCounter;
+    private final Counter conflictCounter;
+    private final Counter retryCounter;
+
+    public OrderService(OrderRepository orderRepository, MeterRegistry meterRegistry) {
         this.orderRepository = orderRepository;
+        this.validateTimer = stepTimer(meterRegistry, "validate");
+        this.reserveTimer = stepTimer(meterRegistry, "reserve");
+        this.persistTimer = stepTimer(meterRegistry, "persist");
+        this.balanceTimer = stepTimer(meterRegistry, "balance");
+        this.placedCounter = resultCounter(meterRegistry, "placed");
+        this.rejectedCounter = resultCounter(meterRegistry, "rejected");
+        this.conflictCounter = resultCounter(meterRegistry, "conflict");
+        this.retryCounter = Counter.builder("checkout.retries")
+                .description("Checkout attempts retried after an optimistic lock conflict")
+                .register(meterRegistry);
+    }
+
+    private static Timer stepTimer(MeterRegistry registry, String step) {
+        return Timer.builder("checkout.step").tag("step", step)
+                .description("Time spent in one checkout step")
+                .register(registry);
+    }
+
+    private static Counter resultCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("checkout.result").tag("outcome", outcome)
+                .description("Checkouts by outcome")
+                .register(registry);
     }
 
     public Order createOrder(Order order) {
@@ -89,21 +152,70 @@ public class OrderService {
     public static record CheckoutItem(Long productId, String size, String color, Long quantity) {}
     public static record CheckoutResult(Order order, List<Map<String, Object>> failures) {}
 
-    @Transactional
+    /**
+     * Runs the checkout in its own transaction and retries it when an optimistic lock check fails
+     * (e.g. two checkouts for the same customer racing on the balance). Each retry starts from a fresh
+     * read after a jittered exponential backoff; once the attempts are used up the conflict is rethrown.
+     */
     public CheckoutResult processCheckout(Long customerId, List<CheckoutItem> items) {
-        System.out.println("[OrderService] Starting checkout for customer: " + customerId);
-        
+        for (int attempt = 1; ; attempt++) {
+            try {
+                CheckoutResult result = transactionTemplate.execute(status -> checkoutOnce(customerId, items, status));
+                if (result != null && result.order() != null) {
+                    placedCounter.increment();
+                    // Committed: cached product detail now shows stale stock
+                    productService.evictProductDetails(items.stream()
+                            .map(CheckoutItem::productId)
+                            .filter(Objects::nonNull)
+                            .toList());
+                } else {
+                    rejectedCounter.increment();
+                }
+                return result;
+            } catch (ConcurrencyFailureException ex) {
+                if (attempt >= maxCheckoutAttempts) {
+                    conflictCounter.increment();
+                    throw ex;
+                }
+                retryCounter.increment();
+                log.debug("Checkout conflict, retrying (attempt {})", attempt);
+                backoff(attempt);
+            }
+        }
+    }
+
+    // Full jitter: sleep a random time up to base * 2^(attempt-1), capped
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMicros, baseBackoffMicros << Math.min(attempt - 1, 20));
+        try {
+            TimeUnit.MICROSECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Checkout interrupted", ie);
+        }
+    }
+
+    // Records the time since `since` and returns the new step start
+    private static long lap(Timer timer, long since) {
+        long now = System.nanoTime();
+        timer.record(now - since, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    private CheckoutResult checkoutOnce(Long customerId, List<CheckoutItem> items, TransactionStatus status) {
+        log.debug("Starting checkout for customer: {}", customerId);
+        long stepStart = System.nanoTime();
+
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new RuntimeException("Customer not found: " + customerId));
-        System.out.println("[OrderService] Customer found: " + customer.getUsername());
+        log.debug("Customer found: {}", customer.getUsername());
 
         List<Map<String, Object>> failures = new ArrayList<>();
         List<OrderItem> preparedItems = new ArrayList<>();
         BigDecimal total = BigDecimal.ZERO;
-        List<Long> affectedProductIds = new ArrayList<>();
 
         for (CheckoutItem item : items) {
-            System.out.println("[OrderService] Processing item: productId=" + item.productId() + ", qty=" + item.quantity());
+            log.debug("Processing item: productId={}, qty={}", item.productId(), item.quantity());
             
             if (item == null || item.productId() == null || item.quantity() == null || item.quantity() <= 0) {
                 failures.add(Map.of("productId", item != null ? item.productId() : null, "reason", "Invalid item"));
@@ -112,13 +224,13 @@ public class OrderService {
 
             Product product = productRepository.findById(item.productId()).orElse(null);
             if (product == null) {
-                System.out.println("[OrderService] Product not found: " + item.productId());
+                log.debug("Product not found: {}", item.productId());
                 failures.add(Map.of("productId", item.productId(), "reason", "Product not found"));
                 continue;
             }
 
             List<ProductVariant> variants = productVariantRepository.findByProductId(item.productId());
-            System.out.println("[OrderService] Found " + (variants != null ? variants.size() : 0) + " variants");
+            log.debug("Found {} variants", variants != null ? variants.size() : 0);
             
             ProductVariant variant = null;
             if (variants != null && !variants.isEmpty()) {
@@ -130,14 +242,14 @@ public class OrderService {
             }
 
             if (variant == null) {
-                System.out.println("[OrderService] No variants available for product: " + item.productId());
+                log.debug("No variants available for product: {}", item.productId());
                 failures.add(Map.of("productId", item.productId(), "reason", "No variants available"));
                 continue;
             }
 
             long available = variant.getStock() != null ? variant.getStock() : 0L;
             if (available < item.quantity()) {
-                System.out.println("[OrderService] Insufficient stock: available=" + available + ", requested=" + item.quantity());
+                log.debug("Insufficient stock: available={}, requested={}", available, item.quantity());
                 failures.add(Map.of("productId", item.productId(), "variantId", variant.getVariantId(),
                         "available", available, "requested", item.quantity(), "reason", "Insufficient stock"));
                 continue;
@@ -154,11 +266,10 @@ public class OrderService {
             oi.setUnitPrice(unitPrice);
             oi.setSubtotal(subtotal);
             preparedItems.add(oi);
-            affectedProductIds.add(product.getProductId());
         }
 
         if (!failures.isEmpty()) {
-            System.out.println("[OrderService] Validation failures: " + failures.size());
+            log.debug("Validation failures: {}", failures.size());
             return new CheckoutResult(null, failures);
         }
 
@@ -166,7 +277,7 @@ public class OrderService {
         double currentBalance = customer.getBalance() != null ? customer.getBalance() : 0.0;
         double required = total.doubleValue();
         if (currentBalance < required) {
-            System.out.println("[OrderService] Insufficient balance: current=" + currentBalance + ", required=" + required);
+            log.debug("Insufficient balance: current={}, required={}", currentBalance, required);
             List<Map<String, Object>> balFailure = new ArrayList<>();
             balFailure.add(Map.of(
                     "reason", "Insufficient balance",
@@ -176,42 +287,62 @@ public class OrderService {
             return new CheckoutResult(null, balFailure);
         }
 
-        System.out.println("[OrderService] Creating order with total: " + total);
+        stepStart = lap(validateTimer, stepStart);
+
+        // Reserve stock with one conditional UPDATE per variant. Lines for the same variant are merged,
+        // and variants are locked in id order so concurrent multi-line orders cannot deadlock.
+        Map<Long, Long> quantities = new TreeMap<>();
+        Map<Long, Long> productQuantities = new TreeMap<>();
+        for (OrderItem oi : preparedItems) {
+            quantities.merge(oi.getVariant().getVariantId(), oi.getQuantity(), Long::sum);
+            productQuantities.merge(oi.getVariant().getProduct().getProductId(), oi.getQuantity(), Long::sum);
+        }
+        for (Map.Entry<Long, Long> line : quantities.entrySet()) {
+            if (productVariantRepository.decrementStock(line.getKey(), line.getValue()) == 0) {
+                log.debug("Stock reservation failed: variantId={}", line.getKey());
+                // Undo reservations already taken in this transaction
+                status.setRollbackOnly();
+                List<Map<String, Object>> stockFailure = new ArrayList<>();
+                stockFailure.add(Map.of("variantId", line.getKey(), "requested", line.getValue(),
+                        "reason", "Insufficient stock"));
+                return new CheckoutResult(null, stockFailure);
+            }
+        }
+
+        stepStart = lap(reserveTimer, stepStart);
+
+        log.debug("Creating order with total: {}", total);
         Order order = new Order();
         order.setCustomer(customer);
         order.setTotalAmount(total);
         order.setStatus("DELIVERED");  // ✅ Auto-mark as delivered (instant fulfillment for demo)
         order = createOrder(order);
-        System.out.println("[OrderService] Order created: " + order.getOrderNumber());
+        log.debug("Order created: {}", order.getOrderNumber());
 
-        // Persist items and deduct stock
+        // Persist items in one JDBC batch; stock was already deducted above
         for (OrderItem oi : preparedItems) {
             oi.setOrder(order);
-            ProductVariant v = oi.getVariant();
-            long newStock = (v.getStock() != null ? v.getStock() : 0L) - oi.getQuantity();
-            v.setStock(Math.max(0L, newStock));
-            productVariantRepository.save(v);
-            orderItemRepository.save(oi);
         }
-        System.out.println("[OrderService] Order items saved: " + preparedItems.size());
-
-        // Recalculate product-level stock
-        List<Long> uniqueProductIds = affectedProductIds.stream().distinct().collect(Collectors.toList());
-        for (Long pid : uniqueProductIds) {
-            List<ProductVariant> vs = productVariantRepository.findByProductId(pid);
-            long sum = vs.stream().map(ProductVariant::getStock).filter(s -> s != null).reduce(0L, Long::sum);
-            productRepository.findById(pid).ifPresent(p -> {
-                p.setStock(sum);
-                productRepository.save(p);
-            });
+        orderItemRepository.saveAll(preparedItems);
+        log.debug("Order items saved: {}", preparedItems.size());
+
+        // Seller analytics rollups commit (or roll back) together with the order
+        salesRollupService.recordOrder(order.getCreatedAt().toLocalDate(), preparedItems);
+
+        // Product-level stock is an aggregate of its variants: apply the same deltas, no re-summing
+        for (Map.Entry<Long, Long> line : productQuantities.entrySet()) {
+            productRepository.adjustStock(line.getKey(), -line.getValue());
         }
 
-        // Deduct customer balance and persist
+        stepStart = lap(persistTimer, stepStart);
+
+        // Deduct customer balance; the version check at flush rejects a concurrent deduction
         double newBalance = currentBalance - required;
         customer.setBalance(newBalance);
-        customerRepository.save(customer);
-        System.out.println("[OrderService] Balance updated: newBalance=" + newBalance);
-        System.out.println("[OrderService] Checkout completed successfully");
+        customerRepository.saveAndFlush(customer);
+        lap(balanceTimer, stepStart);
+        log.debug("Balance updated: newBalance={}", newBalance);
+        log.debug("Checkout completed successfully");
 
         return new CheckoutResult(order, failures);
     }
@@ -0,0 +1,159 @@
+package com.corethreads.corethreads.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt hashing and verification on a small dedicated pool. A login burst can then occupy at
+ * most threads + queue-capacity request threads; anything beyond that is refused at once with 429
+ * instead of piling up behind the CPU-bound hashes.
+ *
+ * The cost factor is calibrated at startup: the highest cost whose hash stays within the target
+ * latency on this host. Hashes stored with a different cost are reported by {@link #needsRehash}.
+ */
+@Component
+public class PasswordHasher {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private static final int MIN_BCRYPT_COST = 4;
+    private static final int MAX_BCRYPT_COST = 16;
+
+    private final int cost;
+    private final BCryptPasswordEncoder encoder;
+    private final long maxWaitMillis;
+
+    private final ThreadPoolExecutor executor;
+    private final Counter rejected;
+    private final Timer hashTimer;
+
+    public PasswordHasher(MeterRegistry meterRegistry,
+                          @Value("${security.password.bcrypt-cost:0}") int fixedCost,
+                          @Value("${security.password.target-ms:250}") long targetMillis,
+                          @Value("${security.password.min-cost:10}") int minCost,
+                          @Value("${security.password.threads:0}") int threads,
+                          @Value("${security.password.queue-capacity:32}") int queueCapacity,
+                          @Value("${security.password.max-wait-ms:5000}") long maxWaitMillis) {
+        this.cost = fixedCost > 0 ? fixedCost : calibrate(targetMillis, minCost);
+        this.encoder = new BCryptPasswordEncoder(cost);
+        this.maxWaitMillis = maxWaitMillis;
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        ArrayBlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, queue, r -> {
+            Thread t = new Thread(r, "password-hash-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.rejected = Counter.builder("security.password.rejected")
+                .description("Hash requests refused because the pool was saturated")
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("security.password.hash")
+                .description("Time spent in BCrypt, excluding queueing")
+                .register(meterRegistry);
+        Gauge.builder("security.password.queue.depth", queue, ArrayBlockingQueue::size).register(meterRegistry);
+        log.info("Password hashing on {} threads, BCrypt cost {}", poolSize, cost);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> encoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    // --- True when the stored hash was made with a different cost than the current one ---
+    public boolean needsRehash(String encodedPassword) {
+        // $2a$10$<salt+hash>: the cost is the two digits after the second '$'
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return true;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != cost;
+        } catch (NumberFormatException ex) {
+            return true;
+        }
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> hashTimer.recordCallable(task));
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many sign-in attempts, retry shortly");
+        }
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many sign-in attempts, retry shortly");
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Times one hash at the minimum cost and doubles per step (BCrypt work is 2^cost) to find the
+     * highest cost that still fits the target. Never goes below minCost.
+     */
+    private static int calibrate(long targetMillis, int minCost) {
+        int base = Math.max(MIN_BCRYPT_COST, Math.min(minCost, MAX_BCRYPT_COST));
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(base);
+        probe.encode("calibration-warmup");
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration-probe");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double millis = best / 1_000_000.0;
+        int cost = base;
+        while (cost < MAX_BCRYPT_COST && millis * 2 <= targetMillis) {
+            millis *= 2;
+            cost++;
+        }
+        log.info("Calibrated BCrypt cost {} (~{} ms per hash, target {} ms)", cost, Math.round(millis), targetMillis);
+        return cost;
+    }
+}
@@ -0,0 +1,9 @@
+package com.corethreads.corethreads.service;
+
+import com.corethreads.corethreads.entity.Product;
+
+/**
+ * Published after a product, or anything hanging off it (variants, images, stock), is written.
+ * Read-side structures such as the search and facet indexes listen for it.
+ */
+public record ProductChangedEvent(Product product) {}
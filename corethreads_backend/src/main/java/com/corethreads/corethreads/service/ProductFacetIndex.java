@@ -0,0 +1,565 @@
+package com.corethreads.corethreads.service;
+
+import com.corethreads.corethreads.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Precomputed bitmap postings for storefront filters (category, color, size, price).
+ * Rows are variants, so "black, size M, 20-50" must hold for the same variant; matches are then
+ * projected onto products. Each facet is counted with every filter applied except its own
+ * (disjunctive faceting), so the client can show how many products each option would give.
+ *
+ * The index is an immutable snapshot. A product write queues the product id; the next query reads
+ * just those products' rows and publishes a patched copy, cloning only the bitmaps it touches, so
+ * the cost of keeping up with writes follows the products changed, not the catalogue. The full
+ * scan runs at startup, on {@link #markDirty()}, and when too many products changed at once.
+ */
+@Component
+public class ProductFacetIndex {
+
+    // Beyond this many changed products one full rebuild is cheaper than a patch
+    private static final int MAX_PATCH_PRODUCTS = 1000;
+
+    private final ProductRepository productRepository;
+    private final BigDecimal[] bandEdges;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private volatile Snapshot snapshot;
+    private volatile boolean dirty = true;
+
+    public record Query(boolean activeOnly, Set<Long> categoryIds, Set<String> colors, Set<String> sizes,
+                        BigDecimal minPrice, BigDecimal maxPrice) {}
+
+    public record Result(List<Long> productIds, int total, Map<String, Map<String, Integer>> facets) {}
+
+    public ProductFacetIndex(ProductRepository productRepository,
+                             @Value("${catalogue.facets.price-bands:0,25,50,100}") String priceBands) {
+        this.productRepository = productRepository;
+        this.bandEdges = Arrays.stream(priceBands.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(BigDecimal::new)
+                .sorted()
+                .toArray(BigDecimal[]::new);
+    }
+
+    // --- Forces a full rebuild on the next query (bulk writes that publish no per-product event) ---
+    public void markDirty() {
+        dirty = true;
+    }
+
+    // After commit, so the patch cannot read the rows before the write is visible
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.product() != null && event.product().getProductId() != null) {
+            changed.add(event.product().getProductId());
+        }
+    }
+
+    /**
+     * Filters and counts in one pass over the bitmaps. Products are returned newest first
+     * (descending id) and sliced by offset/limit.
+     */
+    public Result query(Query q, int offset, int limit) {
+        Snapshot s = current();
+
+        BitSet base = (BitSet) (q.activeOnly() ? s.activeRows : s.liveRows).clone();
+        BitSet category = union(s.categoryRows, q.categoryIds(), s.rowCount);
+        BitSet color = union(s.colorRows, normalize(q.colors(), false), s.rowCount);
+        BitSet size = union(s.sizeRows, normalize(q.sizes(), true), s.rowCount);
+        BitSet price = s.priceRange(q.minPrice(), q.maxPrice());
+
+        BitSet matched = and(base, category, color, size, price);
+        BitSet products = s.projectToProducts(matched);
+
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put("category", s.countProducts(and(base, color, size, price), s.categoryRows));
+        facets.put("color", s.countProducts(and(base, category, size, price), s.colorRows));
+        facets.put("size", s.countProducts(and(base, category, color, price), s.sizeRows));
+        facets.put("priceBand", s.countProducts(and(base, category, color, size), s.bandRows));
+
+        // Product ordinals follow ascending id, so walk backwards for newest first
+        List<Long> page = new ArrayList<>();
+        int skipped = 0;
+        for (int ord = products.previousSetBit(s.productIds.length - 1);
+             ord >= 0 && page.size() < limit;
+             ord = products.previousSetBit(ord - 1)) {
+            if (skipped++ < offset) {
+                continue;
+            }
+            page.add(s.productIds[ord]);
+        }
+        return new Result(page, products.cardinality(), facets);
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null || dirty || !changed.isEmpty()) {
+            // First caller refreshes; concurrent callers keep serving the previous snapshot
+            if (s == null) {
+                rebuildLock.lock();
+            } else if (!rebuildLock.tryLock()) {
+                return s;
+            }
+            try {
+                refresh();
+                s = snapshot;
+            } finally {
+                rebuildLock.unlock();
+            }
+        }
+        return s;
+    }
+
+    // Caller holds rebuildLock
+    private void refresh() {
+        if (snapshot == null || dirty || changed.size() > MAX_PATCH_PRODUCTS) {
+            dirty = false;
+            // The full read below covers everything queued so far
+            changed.clear();
+            try {
+                snapshot = build();
+            } catch (RuntimeException ex) {
+                dirty = true;
+                throw ex;
+            }
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        Iterator<Long> it = changed.iterator();
+        while (it.hasNext()) {
+            ids.add(it.next());
+            // Removed before the read, so a write landing meanwhile queues the product again
+            it.remove();
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            Snapshot patched = patch(snapshot, ids);
+            snapshot = patched != null ? patched : build();
+        } catch (RuntimeException ex) {
+            changed.addAll(ids);
+            throw ex;
+        }
+    }
+
+    private Snapshot build() {
+        List<ProductRepository.FacetRow> rows = productRepository.findFacetRows();
+        int n = rows.size();
+
+        Postings postings = new Postings();
+        List<Long> productIds = new ArrayList<>();
+        List<int[]> productRows = new ArrayList<>();
+        int[] rowProduct = new int[n];
+        int[] indexed = new int[n];
+        BigDecimal[] prices = new BigDecimal[n];
+
+        int productStart = 0;
+        for (int i = 0; i < n; i++) {
+            ProductRepository.FacetRow row = rows.get(i);
+            // Rows arrive ordered by product id, so ordinals are ascending in id
+            if (productIds.isEmpty() || !productIds.get(productIds.size() - 1).equals(row.getProductId())) {
+                if (!productIds.isEmpty()) {
+                    productRows.add(range(productStart, i));
+                }
+                productIds.add(row.getProductId());
+                productStart = i;
+            }
+            rowProduct[i] = productIds.size() - 1;
+            indexed[i] = i;
+            prices[i] = postings.add(i, row);
+        }
+        if (!productIds.isEmpty()) {
+            productRows.add(range(productStart, n));
+        }
+
+        PriceOrder order = mergePrices(new BigDecimal[0], new int[0], indexed, prices);
+        return new Snapshot(n, productIds.stream().mapToLong(Long::longValue).toArray(),
+                productRows.toArray(new int[0][]), rowProduct, postings.liveRows, postings.activeRows,
+                postings.categoryRows, postings.colorRows, postings.sizeRows, postings.bandRows,
+                order.prices(), order.rows());
+    }
+
+    /**
+     * Copy of the snapshot with the given products' rows re-read. A product keeps its row slots
+     * (new variants get slots at the end), so ordinals and the other products' bits are untouched.
+     * Returns null when a product id would sort before existing ones, which needs a rebuild to
+     * keep ordinals ascending in id.
+     */
+    private Snapshot patch(Snapshot s, List<Long> ids) {
+        Map<Long, List<ProductRepository.FacetRow>> byProduct = new TreeMap<>();
+        for (Long id : ids) {
+            byProduct.put(id, new ArrayList<>());
+        }
+        List<ProductRepository.FacetRow> rows = productRepository.findFacetRowsByProductIds(ids);
+        for (ProductRepository.FacetRow row : rows) {
+            byProduct.get(row.getProductId()).add(row);
+        }
+
+        long[] productIds = s.productIds();
+        int products = productIds.length;
+        int added = 0;
+        long last = products == 0 ? Long.MIN_VALUE : productIds[products - 1];
+        BitSet cleared = new BitSet(s.rowCount());
+        for (Map.Entry<Long, List<ProductRepository.FacetRow>> e : byProduct.entrySet()) {
+            int ord = Arrays.binarySearch(productIds, e.getKey());
+            if (ord >= 0) {
+                for (int r : s.productRows()[ord]) {
+                    cleared.set(r);
+                }
+            } else if (!e.getValue().isEmpty()) {
+                if (e.getKey() <= last) {
+                    return null;
+                }
+                last = e.getKey();
+                added++;
+            }
+        }
+
+        Postings postings = new Postings(s);
+        postings.clear(cleared);
+
+        long[] newIds = Arrays.copyOf(productIds, products + added);
+        int[][] productRows = Arrays.copyOf(s.productRows(), products + added);
+        int[] placedRows = new int[rows.size()];
+        int[] placedOwners = new int[rows.size()];
+        ProductRepository.FacetRow[] placed = new ProductRepository.FacetRow[rows.size()];
+        int count = 0;
+        int rowCount = s.rowCount();
+        int nextOrdinal = products;
+        for (Map.Entry<Long, List<ProductRepository.FacetRow>> e : byProduct.entrySet()) {
+            List<ProductRepository.FacetRow> productRowsNow = e.getValue();
+            int ord = Arrays.binarySearch(productIds, e.getKey());
+            if (ord < 0) {
+                if (productRowsNow.isEmpty()) {
+                    continue;
+                }
+                ord = nextOrdinal++;
+                newIds[ord] = e.getKey();
+            }
+            int[] previous = ord < products ? s.productRows()[ord] : new int[0];
+            int[] slots = new int[productRowsNow.size()];
+            for (int j = 0; j < slots.length; j++) {
+                slots[j] = j < previous.length ? previous[j] : rowCount++;
+                placedRows[count] = slots[j];
+                placedOwners[count] = ord;
+                placed[count++] = productRowsNow.get(j);
+            }
+            productRows[ord] = slots;
+        }
+
+        int[] rowProduct = Arrays.copyOf(s.rowProduct(), rowCount);
+        BigDecimal[] prices = new BigDecimal[count];
+        for (int i = 0; i < count; i++) {
+            rowProduct[placedRows[i]] = placedOwners[i];
+            prices[i] = postings.add(placedRows[i], placed[i]);
+        }
+
+        // Keep the untouched rows' price order and merge the re-read rows into it
+        int kept = 0;
+        BigDecimal[] keptPrices = new BigDecimal[s.sortedRows().length];
+        int[] keptRows = new int[s.sortedRows().length];
+        for (int i = 0; i < s.sortedRows().length; i++) {
+            if (!cleared.get(s.sortedRows()[i])) {
+                keptPrices[kept] = s.sortedPrices()[i];
+                keptRows[kept++] = s.sortedRows()[i];
+            }
+        }
+        PriceOrder order = mergePrices(Arrays.copyOf(keptPrices, kept), Arrays.copyOf(keptRows, kept),
+                Arrays.copyOf(placedRows, count), prices);
+
+        return new Snapshot(rowCount, newIds, productRows, rowProduct, postings.liveRows, postings.activeRows,
+                postings.categoryRows, postings.colorRows, postings.sizeRows, postings.bandRows,
+                order.prices(), order.rows());
+    }
+
+    private record PriceOrder(BigDecimal[] prices, int[] rows) {}
+
+    // Merges already-sorted (price, row) pairs with unsorted ones; rows without a price are left out
+    private static PriceOrder mergePrices(BigDecimal[] sortedPrices, int[] sortedRows, int[] rows, BigDecimal[] prices) {
+        Integer[] order = new Integer[rows.length];
+        int priced = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (prices[i] != null) {
+                order[priced++] = i;
+            }
+        }
+        Integer[] added = Arrays.copyOf(order, priced);
+        Arrays.sort(added, (a, b) -> prices[a].compareTo(prices[b]));
+
+        int total = sortedRows.length + priced;
+        BigDecimal[] mergedPrices = new BigDecimal[total];
+        int[] mergedRows = new int[total];
+        int i = 0, j = 0;
+        for (int k = 0; k < total; k++) {
+            if (j >= priced || (i < sortedRows.length && sortedPrices[i].compareTo(prices[added[j]]) <= 0)) {
+                mergedPrices[k] = sortedPrices[i];
+                mergedRows[k] = sortedRows[i++];
+            } else {
+                mergedPrices[k] = prices[added[j]];
+                mergedRows[k] = rows[added[j++]];
+            }
+        }
+        return new PriceOrder(mergedPrices, mergedRows);
+    }
+
+    private static int[] range(int from, int to) {
+        int[] rows = new int[to - from];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = from + i;
+        }
+        return rows;
+    }
+
+    /**
+     * Working copy of the postings. Bitmaps shared with a published snapshot are cloned before
+     * their first write, so readers of that snapshot never observe a change.
+     */
+    private final class Postings {
+        private final Set<BitSet> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        BitSet liveRows;
+        BitSet activeRows;
+        final Map<String, BitSet> categoryRows;
+        final Map<String, BitSet> colorRows;
+        final Map<String, BitSet> sizeRows;
+        final Map<String, BitSet> bandRows;
+
+        Postings() {
+            liveRows = own(new BitSet());
+            activeRows = own(new BitSet());
+            categoryRows = new TreeMap<>();
+            colorRows = new TreeMap<>();
+            sizeRows = new TreeMap<>();
+            bandRows = new LinkedHashMap<>();
+            for (int b = 0; b < bandEdges.length; b++) {
+                bandRows.put(bandLabel(b), own(new BitSet()));
+            }
+        }
+
+        Postings(Snapshot s) {
+            liveRows = s.liveRows();
+            activeRows = s.activeRows();
+            categoryRows = new TreeMap<>(s.categoryRows());
+            colorRows = new TreeMap<>(s.colorRows());
+            sizeRows = new TreeMap<>(s.sizeRows());
+            bandRows = new LinkedHashMap<>(s.bandRows());
+        }
+
+        // Indexes one row and returns the price it was filed under
+        BigDecimal add(int i, ProductRepository.FacetRow row) {
+            liveRows = own(liveRows);
+            liveRows.set(i);
+            if (Boolean.TRUE.equals(row.getActive())) {
+                activeRows = own(activeRows);
+                activeRows.set(i);
+            }
+            if (row.getCategoryId() != null) {
+                own(categoryRows, String.valueOf(row.getCategoryId())).set(i);
+            }
+            if (row.getColor() != null && !row.getColor().isBlank()) {
+                own(colorRows, row.getColor().trim().toLowerCase()).set(i);
+            } else if (row.getProductColors() != null) {
+                // Products without per-variant colors offer every listed color
+                for (String c : row.getProductColors().split(",")) {
+                    if (!c.isBlank()) {
+                        own(colorRows, c.trim().toLowerCase()).set(i);
+                    }
+                }
+            }
+            if (row.getSize() != null && !row.getSize().isBlank()) {
+                own(sizeRows, row.getSize().trim().toUpperCase()).set(i);
+            }
+
+            BigDecimal price = row.getPrice() != null ? row.getPrice() : row.getProductPrice();
+            int band = bandOf(price);
+            if (band >= 0) {
+                own(bandRows, bandLabel(band)).set(i);
+            }
+            return price;
+        }
+
+        // Drops the given rows from every bitmap; facet values left without rows disappear
+        void clear(BitSet rows) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            if (liveRows.intersects(rows)) {
+                liveRows = own(liveRows);
+                liveRows.andNot(rows);
+            }
+            if (activeRows.intersects(rows)) {
+                activeRows = own(activeRows);
+                activeRows.andNot(rows);
+            }
+            clear(categoryRows, rows, true);
+            clear(colorRows, rows, true);
+            clear(sizeRows, rows, true);
+            clear(bandRows, rows, false);
+        }
+
+        private void clear(Map<String, BitSet> postings, BitSet rows, boolean dropEmpty) {
+            for (String key : new ArrayList<>(postings.keySet())) {
+                if (postings.get(key).intersects(rows)) {
+                    BitSet bits = own(postings, key);
+                    bits.andNot(rows);
+                    if (dropEmpty && bits.isEmpty()) {
+                        postings.remove(key);
+                    }
+                }
+            }
+        }
+
+        private BitSet own(BitSet bits) {
+            if (owned.contains(bits)) {
+                return bits;
+            }
+            BitSet copy = (BitSet) bits.clone();
+            owned.add(copy);
+            return copy;
+        }
+
+        private BitSet own(Map<String, BitSet> postings, String key) {
+            BitSet bits = postings.get(key);
+            BitSet mine = bits == null ? own(new BitSet()) : own(bits);
+            if (mine != bits) {
+                postings.put(key, mine);
+            }
+            return mine;
+        }
+    }
+
+    private int bandOf(BigDecimal price) {
+        if (price == null) {
+            return -1;
+        }
+        for (int b = bandEdges.length - 1; b >= 0; b--) {
+            if (price.compareTo(bandEdges[b]) >= 0) {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    private String bandLabel(int b) {
+        String lower = bandEdges[b].toPlainString();
+        return b + 1 < bandEdges.length ? lower + "-" + bandEdges[b + 1].toPlainString() : lower + "+";
+    }
+
+    private static Set<String> normalize(Set<String> values, boolean upper) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        Set<String> normalized = new java.util.HashSet<>();
+        for (String v : values) {
+            if (v != null && !v.isBlank()) {
+                normalized.add(upper ? v.trim().toUpperCase() : v.trim().toLowerCase());
+            }
+        }
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    // null selection means "no filter"; an unknown value selects nothing
+    private static BitSet union(Map<String, BitSet> postings, Collection<?> selected, int rowCount) {
+        if (selected == null || selected.isEmpty()) {
+            return null;
+        }
+        BitSet result = new BitSet(rowCount);
+        for (Object value : selected) {
+            BitSet rows = postings.get(String.valueOf(value));
+            if (rows != null) {
+                result.or(rows);
+            }
+        }
+        return result;
+    }
+
+    private static BitSet and(BitSet base, BitSet... filters) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet f : filters) {
+            if (f != null) {
+                result.and(f);
+            }
+        }
+        return result;
+    }
+
+    // Rows of a product are listed in productRows[ordinal]; rows outside liveRows are dead slots
+    private record Snapshot(int rowCount, long[] productIds, int[][] productRows, int[] rowProduct,
+                            BitSet liveRows, BitSet activeRows,
+                            Map<String, BitSet> categoryRows, Map<String, BitSet> colorRows,
+                            Map<String, BitSet> sizeRows, Map<String, BitSet> bandRows,
+                            BigDecimal[] sortedPrices, int[] sortedRows) {
+
+        BitSet priceRange(BigDecimal min, BigDecimal max) {
+            if (min == null && max == null) {
+                return null;
+            }
+            int from = min == null ? 0 : lowerBound(min);
+            int to = max == null ? sortedPrices.length : upperBound(max);
+            BitSet rows = new BitSet(rowCount);
+            for (int i = from; i < to; i++) {
+                rows.set(sortedRows[i]);
+            }
+            return rows;
+        }
+
+        BitSet projectToProducts(BitSet rows) {
+            BitSet products = new BitSet(productIds.length);
+            for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+                products.set(rowProduct[r]);
+            }
+            return products;
+        }
+
+        Map<String, Integer> countProducts(BitSet candidates, Map<String, BitSet> postings) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (Map.Entry<String, BitSet> e : postings.entrySet()) {
+                BitSet rows = (BitSet) candidates.clone();
+                rows.and(e.getValue());
+                int count = rows.isEmpty() ? 0 : projectToProducts(rows).cardinality();
+                counts.put(e.getKey(), count);
+            }
+            return counts;
+        }
+
+        // First index with price >= value
+        private int lowerBound(BigDecimal value) {
+            int lo = 0, hi = sortedPrices.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sortedPrices[mid].compareTo(value) < 0) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        // First index with price > value
+        private int upperBound(BigDecimal value) {
+            int lo = 0, hi = sortedPrices.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sortedPrices[mid].compareTo(value) <= 0) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
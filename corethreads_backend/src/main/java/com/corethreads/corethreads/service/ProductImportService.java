@@ -0,0 +1,499 @@
+package com.corethreads.corethreads.service;
+
+import com.corethreads.corethreads.entity.Product;
+import com.corethreads.corethreads.entity.ProductImage;
+import com.corethreads.corethreads.entity.ProductVariant;
+import com.corethreads.corethreads.entity.Seller;
+import com.corethreads.corethreads.repository.ProductImageRepository;
+import com.corethreads.corethreads.repository.ProductRepository;
+import com.corethreads.corethreads.repository.ProductVariantRepository;
+import com.corethreads.corethreads.util.CsvReader;
+import com.corethreads.corethreads.util.InputValidator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk catalogue import for sellers. The upload (CSV or a JSON array) is parsed one product at a
+ * time, validated, and persisted in chunks: each chunk is one transaction whose products, variants
+ * and images go out as JDBC batches, after which the persistence context is cleared. A chunk that
+ * fails as a whole is retried row by row so the bad rows can be reported; other rows still land.
+ *
+ * CSV columns (header row required, any order, unknown columns ignored): handle, name, description,
+ * category, price, stock, colors (separated by |), active, size, color, sku, variant_stock,
+ * variant_price, image_url. Consecutive rows sharing a handle describe one product: product fields
+ * come from its first row, and every row may add a variant and an image.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final Pattern PRICE_PATTERN = Pattern.compile("^\\d{1,10}(\\.\\d{1,2})?$");
+    private static final Pattern SKU_PATTERN = Pattern.compile("^[A-Za-z0-9._-]{1,64}$");
+    // Only images already in the store may be attached
+    private static final Pattern IMAGE_URL_PATTERN = Pattern.compile("^/(api/)?images/[A-Za-z0-9._-]{1,128}$");
+    private static final Pattern COLOR_SEPARATOR = Pattern.compile("\\|");
+    private static final Set<String> ALLOWED_COLORS = Set.of("black", "white", "grey", "navy blue", "olive green", "dark blue");
+
+    private static final int MAX_TEXT_COLUMN = 255;
+    private static final int MAX_VARIANTS = 100;
+    private static final int MAX_IMAGES = 10;
+    private static final int MAX_CSV_RECORD_CHARS = 64 * 1024;
+
+    public static record VariantItem(String size, String color, String sku, Long stock, String price) {}
+    public static record ImportItem(String handle, String name, String description, String category, String price,
+                                    Long stock, List<String> colors, Boolean active,
+                                    List<VariantItem> variants, List<String> images) {}
+    public static record RowError(long row, String error) {}
+    public static record ImportResult(long imported, long failed, List<RowError> errors, boolean errorsTruncated) {}
+
+    // A parsed item with the row (CSV record or JSON array position) it started at
+    private record Numbered(long row, ImportItem item, String parseError) {}
+
+    private record Prepared(long row, Product product, List<ProductVariant> variants, List<ProductImage> images) {}
+
+    private interface ItemSource {
+        // Null at end of input
+        Numbered next() throws IOException;
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductVariantRepository productVariantRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${import.max-rows:200000}")
+    private int maxRows;
+
+    @Value("${import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    // --- CSV upload ---
+    public ImportResult importCsv(Seller seller, InputStream body) throws IOException {
+        CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024),
+                MAX_CSV_RECORD_CHARS);
+        try {
+            List<String> header = csv.next();
+            if (header == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV is empty");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!columns.containsKey("name")) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header must include a 'name' column");
+            }
+            return run(seller, new CsvItemSource(csv, columns));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
+    // --- JSON array upload ---
+    public ImportResult importJson(Seller seller, InputStream body) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(body);
+        try (parser) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a JSON array of products");
+            }
+            long[] position = {0};
+            return run(seller, () -> {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.END_ARRAY || token == null) {
+                    return null;
+                }
+                long row = ++position[0];
+                // One element at a time as a tree, so a badly typed field fails that row only
+                JsonNode node = parser.readValueAsTree();
+                if (node == null || !node.isObject()) {
+                    return new Numbered(row, null, "Expected an object");
+                }
+                try {
+                    return new Numbered(row, objectMapper.treeToValue(node, ImportItem.class), null);
+                } catch (JsonProcessingException ex) {
+                    return new Numbered(row, null, "Invalid field: " + ex.getOriginalMessage());
+                }
+            });
+        } catch (JsonProcessingException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed JSON: " + ex.getOriginalMessage());
+        }
+    }
+
+    private ImportResult run(Seller seller, ItemSource source) throws IOException {
+        long started = System.nanoTime();
+        List<RowError> errors = new ArrayList<>();
+        long[] counts = new long[2]; // imported, failed
+        List<Prepared> chunk = new ArrayList<>(chunkSize);
+        Set<String> chunkSkus = new HashSet<>();
+        long rows = 0;
+
+        Numbered next;
+        while ((next = source.next()) != null) {
+            if (++rows > maxRows) {
+                reject(errors, counts, new RowError(next.row(), "Import is limited to " + maxRows + " products; the rest was not read"));
+                break;
+            }
+            String error = next.parseError();
+            Prepared prepared = null;
+            if (error == null) {
+                try {
+                    prepared = prepare(seller, next.row(), next.item(), chunkSkus);
+                } catch (IllegalArgumentException ex) {
+                    error = ex.getMessage();
+                }
+            }
+            if (prepared == null) {
+                reject(errors, counts, new RowError(next.row(), error));
+                continue;
+            }
+            chunk.add(prepared);
+            if (chunk.size() >= chunkSize) {
+                flush(chunk, errors, counts);
+                chunkSkus.clear();
+            }
+        }
+        flush(chunk, errors, counts);
+
+        log.info("Seller {} imported {} products ({} failed) in {} ms", seller.getSellerId(), counts[0], counts[1],
+                (System.nanoTime() - started) / 1_000_000);
+        return new ImportResult(counts[0], counts[1], errors, counts[1] > errors.size());
+    }
+
+    private void reject(List<RowError> errors, long[] counts, RowError error) {
+        counts[1]++;
+        if (errors.size() < maxReportedErrors) {
+            errors.add(error);
+        }
+    }
+
+    /**
+     * Validates one item and builds its entities. Throws IllegalArgumentException with the
+     * row's error message.
+     */
+    private Prepared prepare(Seller seller, long row, ImportItem item, Set<String> chunkSkus) {
+        String name = InputValidator.sanitizeProductName(item.name());
+        if (name == null) {
+            throw new IllegalArgumentException(item.name() == null || item.name().isBlank()
+                    ? "Product name is required" : "Product name is invalid after sanitization");
+        }
+        String description = trimToNull(item.description());
+        String category = trimToNull(item.category());
+        if ((description != null && description.length() > MAX_TEXT_COLUMN)
+                || (category != null && category.length() > MAX_TEXT_COLUMN)) {
+            throw new IllegalArgumentException("Description and category are limited to " + MAX_TEXT_COLUMN + " characters");
+        }
+        BigDecimal price = parsePrice(item.price(), "Invalid price");
+
+        LocalDateTime now = LocalDateTime.now();
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(description);
+        product.setCategory(category);
+        product.setPrice(price);
+        product.setSeller(seller);
+        product.setActive(item.active() == null || item.active());
+        product.setColors(filterColors(item.colors()));
+        product.setProductCode("PRD-" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase());
+        product.setCreatedAt(now);
+        product.setUpdatedAt(now);
+
+        List<VariantItem> variantItems = item.variants() != null ? item.variants() : List.of();
+        if (variantItems.size() > MAX_VARIANTS) {
+            throw new IllegalArgumentException("At most " + MAX_VARIANTS + " variants per product");
+        }
+        List<ProductVariant> variants = new ArrayList<>(variantItems.size());
+        Set<String> skus = new HashSet<>();
+        long variantStock = 0;
+        for (VariantItem v : variantItems) {
+            if (v == null) {
+                continue;
+            }
+            String sku = trimToNull(v.sku());
+            if (sku == null) {
+                sku = product.getProductCode() + "-" + (variants.size() + 1);
+            } else if (!SKU_PATTERN.matcher(sku).matches()) {
+                throw new IllegalArgumentException("Invalid SKU: " + sku);
+            }
+            if (!skus.add(sku) || chunkSkus.contains(sku)) {
+                throw new IllegalArgumentException("Duplicate SKU: " + sku);
+            }
+            BigDecimal variantPrice = parsePrice(v.price(), "Invalid variant price");
+            if (variantPrice == null) {
+                variantPrice = price;
+            }
+            if (variantPrice == null) {
+                throw new IllegalArgumentException("Variant " + sku + " needs a price (or a product price)");
+            }
+            long stock = v.stock() != null ? Math.max(0L, v.stock()) : 0L;
+            variantStock += stock;
+            ProductVariant variant = new ProductVariant(trimToNull(v.size()), trimToNull(v.color()), sku, stock, variantPrice, product);
+            variant.setCreatedAt(now);
+            variants.add(variant);
+        }
+        // Product-level stock is the sum of its variants when it has any
+        product.setStock(variants.isEmpty() ? (item.stock() != null ? Math.max(0L, item.stock()) : 0L) : variantStock);
+
+        List<String> imageUrls = item.images() != null ? item.images() : List.of();
+        if (imageUrls.size() > MAX_IMAGES) {
+            throw new IllegalArgumentException("At most " + MAX_IMAGES + " images per product");
+        }
+        List<ProductImage> images = new ArrayList<>(imageUrls.size());
+        for (String url : imageUrls) {
+            String trimmed = trimToNull(url);
+            if (trimmed == null) {
+                continue;
+            }
+            if (!IMAGE_URL_PATTERN.matcher(trimmed).matches()) {
+                throw new IllegalArgumentException("Image must be an uploaded /images/ URL: " + trimmed);
+            }
+            images.add(new ProductImage(product, trimmed, images.size()));
+        }
+
+        chunkSkus.addAll(skus);
+        return new Prepared(row, product, variants, images);
+    }
+
+    private void flush(List<Prepared> chunk, List<RowError> errors, long[] counts) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        // SKUs taken by earlier chunks or other sellers: one IN query per chunk
+        Set<String> skus = new HashSet<>();
+        chunk.forEach(p -> p.variants().forEach(v -> skus.add(v.getSku())));
+        Set<String> taken = skus.isEmpty() ? Set.of() : new HashSet<>(productVariantRepository.findExistingSkus(skus));
+        List<Prepared> accepted = new ArrayList<>(chunk.size());
+        for (Prepared p : chunk) {
+            String clash = p.variants().stream().map(ProductVariant::getSku).filter(taken::contains).findFirst().orElse(null);
+            if (clash != null) {
+                reject(errors, counts, new RowError(p.row(), "SKU already exists: " + clash));
+            } else {
+                accepted.add(p);
+            }
+        }
+
+        try {
+            persist(accepted);
+            counts[0] += accepted.size();
+            published(accepted);
+        } catch (DataAccessException ex) {
+            // Something in the chunk violated a constraint; isolate it row by row
+            log.debug("Import chunk of {} failed, retrying row by row", accepted.size(), ex);
+            for (Prepared p : accepted) {
+                try {
+                    persist(List.of(p));
+                    counts[0]++;
+                    published(List.of(p));
+                } catch (DataAccessException rowEx) {
+                    reject(errors, counts, new RowError(p.row(), "Could not be saved (conflicts with existing data)"));
+                }
+            }
+        }
+        chunk.clear();
+    }
+
+    // One transaction; inserts are batched per entity type, then the persistence context is dropped
+    private void persist(List<Prepared> items) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Product> products = new ArrayList<>(items.size());
+            List<ProductVariant> variants = new ArrayList<>();
+            List<ProductImage> images = new ArrayList<>();
+            for (Prepared p : items) {
+                // A failed attempt may have assigned ids; start clean
+                p.product().setProductId(null);
+                p.variants().forEach(v -> v.setVariantId(null));
+                p.images().forEach(i -> i.setImageId(null));
+                products.add(p.product());
+                variants.addAll(p.variants());
+                images.addAll(p.images());
+            }
+            productRepository.saveAll(products);
+            productVariantRepository.saveAll(variants);
+            productImageRepository.saveAll(images);
+            // Through the repository proxy, so a constraint failure surfaces as a DataAccessException
+            productRepository.flush();
+            entityManager.clear();
+        });
+    }
+
+    private void published(List<Prepared> items) {
+        for (Prepared p : items) {
+            eventPublisher.publishEvent(new ProductChangedEvent(p.product()));
+        }
+    }
+
+    private static BigDecimal parsePrice(String raw, String message) {
+        String value = trimToNull(raw);
+        if (value == null) {
+            return null;
+        }
+        if (!PRICE_PATTERN.matcher(value).matches()) {
+            throw new IllegalArgumentException(message + ": " + value);
+        }
+        return new BigDecimal(value);
+    }
+
+    private static String filterColors(List<String> colors) {
+        if (colors == null) {
+            return null;
+        }
+        List<String> filtered = colors.stream()
+                .filter(c -> c != null)
+                .map(c -> c.trim().toLowerCase(Locale.ROOT))
+                .filter(ALLOWED_COLORS::contains)
+                .distinct()
+                .toList();
+        return filtered.isEmpty() ? null : String.join(",", filtered);
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * Turns CSV records into items, merging consecutive records that share a handle.
+     * Holds at most one look-ahead record.
+     */
+    private static final class CsvItemSource implements ItemSource {
+
+        private final CsvReader csv;
+        private final Map<String, Integer> columns;
+        private List<String> pending;
+        private long pendingRow;
+
+        CsvItemSource(CsvReader csv, Map<String, Integer> columns) {
+            this.csv = csv;
+            this.columns = columns;
+        }
+
+        @Override
+        public Numbered next() throws IOException {
+            List<String> first = pending != null ? pending : csv.next();
+            long row = pending != null ? pendingRow : csv.recordNumber();
+            pending = null;
+            if (first == null) {
+                return null;
+            }
+            String handle = trimToNull(get(first, "handle"));
+            List<VariantItem> variants = new ArrayList<>();
+            List<String> images = new ArrayList<>();
+            String error = null;
+            List<String> record = first;
+            while (true) {
+                try {
+                    addVariantAndImage(record, variants, images);
+                } catch (NumberFormatException ex) {
+                    error = "Invalid number in record " + csv.recordNumber();
+                }
+                if (handle == null) {
+                    break;
+                }
+                List<String> following = csv.next();
+                if (following == null) {
+                    break;
+                }
+                if (!handle.equals(trimToNull(get(following, "handle")))) {
+                    pending = following;
+                    pendingRow = csv.recordNumber();
+                    break;
+                }
+                record = following;
+                if (variants.size() > MAX_VARIANTS) {
+                    error = "At most " + MAX_VARIANTS + " variants per product";
+                }
+            }
+            if (error != null) {
+                return new Numbered(row, null, error);
+            }
+            try {
+                String colors = get(first, "colors");
+                String active = trimToNull(get(first, "active"));
+                String stock = trimToNull(get(first, "stock"));
+                ImportItem item = new ImportItem(handle, get(first, "name"), get(first, "description"),
+                        get(first, "category"), get(first, "price"),
+                        stock != null ? Long.valueOf(stock) : null,
+                        colors != null ? List.of(COLOR_SEPARATOR.split(colors)) : null,
+                        active != null ? Boolean.valueOf(active) : null,
+                        variants, images);
+                return new Numbered(row, item, null);
+            } catch (NumberFormatException ex) {
+                return new Numbered(row, null, "Invalid stock");
+            }
+        }
+
+        private void addVariantAndImage(List<String> record, List<VariantItem> variants, List<String> images) {
+            String sku = get(record, "sku");
+            String size = get(record, "size");
+            String color = get(record, "color");
+            if (trimToNull(sku) != null || trimToNull(size) != null || trimToNull(color) != null) {
+                String stock = trimToNull(get(record, "variant_stock"));
+                variants.add(new VariantItem(size, color, sku, stock != null ? Long.valueOf(stock) : null,
+                        get(record, "variant_price")));
+            }
+            String image = trimToNull(get(record, "image_url"));
+            if (image != null && images.size() <= MAX_IMAGES) {
+                images.add(image);
+            }
+        }
+
+        private String get(List<String> record, String column) {
+            Integer index = columns.get(column);
+            return index != null && index < record.size() ? record.get(index) : null;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.corethreads.corethreads.service;
+
+import com.corethreads.corethreads.entity.Product;
+import com.corethreads.corethreads.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory inverted index for storefront keyword search.
+ * Terms are kept in a sorted map so every query token also matches as a prefix ("hoo" finds "hoodie").
+ * Reads are lock-free; writes are serialised and applied incrementally as products are saved.
+ */
+@Component
+public class ProductSearchIndex {
+
+    // Field weights; a term found in several fields accumulates all of them
+    private static final int NAME_WEIGHT = 8;
+    private static final int CATEGORY_WEIGHT = 4;
+    private static final int COLOR_WEIGHT = 4;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ProductRepository productRepository;
+
+    // term -> (productId -> weight)
+    private final ConcurrentSkipListMap<String, Map<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+    // productId -> indexed terms, so an update can retract the old postings
+    private final Map<Long, Set<String>> documentTerms = new ConcurrentHashMap<>();
+    private final Map<Long, Boolean> activeFlags = new ConcurrentHashMap<>();
+
+    // Writes that land while rebuild() is reading the catalogue (productId -> product, null = removed);
+    // replayed over the fresh postings so the swap cannot roll them back. Guarded by this.
+    private Map<Long, Product> pendingWrites;
+
+    public record SearchHits(List<Long> productIds, int total) {}
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    // Full build once the context (and the data initializers) are done
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            pendingWrites = new HashMap<>();
+        }
+        try {
+            List<Product> products = productRepository.findAll();
+            synchronized (this) {
+                postings.clear();
+                documentTerms.clear();
+                activeFlags.clear();
+                products.forEach(this::indexLocked);
+                // Anything saved after findAll's snapshot is newer than what it returned
+                pendingWrites.forEach((id, product) -> {
+                    if (product == null) {
+                        retract(id);
+                        activeFlags.remove(id);
+                    } else {
+                        indexLocked(product);
+                    }
+                });
+            }
+        } finally {
+            synchronized (this) {
+                pendingWrites = null;
+            }
+        }
+    }
+
+    // --- Add or replace a product's postings ---
+    public synchronized void index(Product product) {
+        if (product == null || product.getProductId() == null) {
+            return;
+        }
+        indexLocked(product);
+        if (pendingWrites != null) {
+            pendingWrites.put(product.getProductId(), product);
+        }
+    }
+
+    // After commit, so a rolled-back save never leaves postings behind
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        index(event.product());
+    }
+
+    // --- Drop a product from the index entirely ---
+    public synchronized void remove(Long productId) {
+        retract(productId);
+        activeFlags.remove(productId);
+        if (pendingWrites != null) {
+            pendingWrites.put(productId, null);
+        }
+    }
+
+    /**
+     * Ranked search. Every query token must match (as a whole term or prefix);
+     * score is the sum of field weights, with exact term matches counting double.
+     */
+    public SearchHits search(String query, boolean activeOnly, int offset, int limit) {
+        List<String> tokens = new ArrayList<>(tokenize(query));
+        if (tokens.isEmpty()) {
+            return new SearchHits(List.of(), 0);
+        }
+
+        Map<Long, Integer> scores = null;
+        for (String token : tokens) {
+            Map<Long, Integer> tokenScores = new HashMap<>();
+            NavigableMap<String, Map<Long, Integer>> matches =
+                    postings.subMap(token, true, token + Character.MAX_VALUE, false);
+            for (Map.Entry<String, Map<Long, Integer>> entry : matches.entrySet()) {
+                int multiplier = entry.getKey().equals(token) ? 2 : 1;
+                entry.getValue().forEach((id, weight) ->
+                        tokenScores.merge(id, weight * multiplier, Math::max));
+            }
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                scores.keySet().retainAll(tokenScores.keySet());
+                for (Map.Entry<Long, Integer> e : scores.entrySet()) {
+                    e.setValue(e.getValue() + tokenScores.get(e.getKey()));
+                }
+            }
+            if (scores.isEmpty()) {
+                return new SearchHits(List.of(), 0);
+            }
+        }
+
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.size());
+        for (Map.Entry<Long, Integer> e : scores.entrySet()) {
+            if (!activeOnly || Boolean.TRUE.equals(activeFlags.get(e.getKey()))) {
+                ranked.add(e);
+            }
+        }
+        // Highest score first, newest product first on ties
+        ranked.sort((a, b) -> a.getValue().equals(b.getValue())
+                ? Long.compare(b.getKey(), a.getKey())
+                : Integer.compare(b.getValue(), a.getValue()));
+
+        int from = Math.min(Math.max(offset, 0), ranked.size());
+        int to = Math.min(from + Math.max(limit, 0), ranked.size());
+        List<Long> page = new ArrayList<>(to - from);
+        for (Map.Entry<Long, Integer> e : ranked.subList(from, to)) {
+            page.add(e.getKey());
+        }
+        return new SearchHits(page, ranked.size());
+    }
+
+    public int size() {
+        return documentTerms.size();
+    }
+
+    private void indexLocked(Product product) {
+        Long id = product.getProductId();
+        retract(id);
+
+        Map<String, Integer> weights = new HashMap<>();
+        addField(weights, product.getName(), NAME_WEIGHT);
+        addField(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+        addField(weights, product.getCategory(), CATEGORY_WEIGHT);
+        if (product.getCategories() != null) {
+            addField(weights, product.getCategories().getName(), CATEGORY_WEIGHT);
+        }
+        addField(weights, product.getColors(), COLOR_WEIGHT);
+
+        for (Map.Entry<String, Integer> e : weights.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), k -> new ConcurrentHashMap<>()).put(id, e.getValue());
+        }
+        documentTerms.put(id, Collections.unmodifiableSet(new HashSet<>(weights.keySet())));
+        activeFlags.put(id, product.isActive());
+    }
+
+    private void retract(Long productId) {
+        Set<String> previous = documentTerms.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous) {
+            Map<Long, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(productId);
+                if (docs.isEmpty()) {
+                    postings.remove(term, docs);
+                }
+            }
+        }
+    }
+
+    private static void addField(Map<String, Integer> weights, String text, int weight) {
+        // Each field contributes its weight once per term, however often the term repeats
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Integer::sum);
+        }
+    }
+
+    // Lower-cased runs of letters/digits; everything else separates tokens
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+}
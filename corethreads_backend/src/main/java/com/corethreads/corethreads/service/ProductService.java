@@ -4,51 +4,276 @@ import com.corethreads.corethreads.dto.ProductSummaryDto;
 import com.corethreads.corethreads.entity.Product;
 import com.corethreads.corethreads.entity.ProductImage;
 import com.corethreads.corethreads.entity.ProductVariant;
+import com.corethreads.corethreads.repository.ProductCatalogueRepository;
 import com.corethreads.corethreads.repository.ProductImageRepository;
 import com.corethreads.corethreads.repository.ProductRepository;
 import com.corethreads.corethreads.repository.ProductVariantRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
 
+    private static final Logger log = LoggerFactory.getLogger(ProductService.class);
+
     private final ProductRepository productRepository;
     private final ProductVariantRepository productVariantRepository;
     private final ProductImageRepository productImageRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Assembled detail responses by product id; absent products are not cached
+    private final LoadingCache<Long, ProductDetail> detailCache;
+
+    // Bumped on every catalogue write; listing ETags are derived from it, so a 304 needs no query.
+    // The boot time keeps ETags from a previous run from matching.
+    private final String catalogueEpoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong catalogueVersion = new AtomicLong();
+
+    @Value("${catalogue.page.default-size:60}")
+    private int defaultPageSize;
+
+    @Value("${catalogue.page.max-size:200}")
+    private int maxPageSize;
+
+    // Longest edge the storefront needs for grid tiles and the detail gallery (device pixels)
+    @Value("${catalogue.summary.image-size:400}")
+    private int summaryImageSize;
+
+    @Value("${catalogue.detail.image-size:1200}")
+    private int detailImageSize;
+
+    public static record ProductPage<T>(List<T> items, String nextCursor, Long totalCount) {}
+
+    // Detail body plus a strong ETag over its content, computed once per cache load
+    public static record ProductDetail(Map<String, Object> body, String etag) {}
 
     public ProductService(ProductRepository productRepository,
                           ProductVariantRepository productVariantRepository,
-                          ProductImageRepository productImageRepository) {
+                          ProductImageRepository productImageRepository,
+                          ProductSearchIndex productSearchIndex,
+                          ProductFacetIndex productFacetIndex,
+                          ApplicationEventPublisher eventPublisher,
+                          MeterRegistry meterRegistry,
+                          @Value("${catalogue.detail-cache.max-size:10000}") long detailCacheSize,
+                          @Value("${catalogue.detail-cache.ttl-seconds:600}") long detailCacheTtl,
+                          @Value("${catalogue.detail-cache.refresh-seconds:0}") long detailCacheRefresh) {
         this.productRepository = productRepository;
         this.productVariantRepository = productVariantRepository;
         this.productImageRepository = productImageRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.eventPublisher = eventPublisher;
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(detailCacheSize)
+                .expireAfterWrite(Duration.ofSeconds(detailCacheTtl))
+                .recordStats();
+        if (detailCacheRefresh > 0) {
+            // Stale-while-revalidate: past this age the cached detail is still served while a reload runs
+            builder.refreshAfterWrite(Duration.ofSeconds(detailCacheRefresh));
+        }
+        this.detailCache = builder.build(id -> productRepository.findById(id)
+                .map(this::mapToDetail)
+                .map(body -> new ProductDetail(body, contentHash(String.valueOf(body))))
+                .orElse(null));
+        CaffeineCacheMetrics.monitor(meterRegistry, detailCache, "productDetail");
+    }
+
+    // --- Drop cached detail for products whose data just changed ---
+    public void evictProductDetails(Collection<Long> productIds) {
+        detailCache.invalidateAll(productIds);
+        catalogueVersion.incrementAndGet();
+    }
+
+    // After commit, so a reload cannot cache the pre-write state
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.product() != null && event.product().getProductId() != null) {
+            detailCache.invalidate(event.product().getProductId());
+        }
+        catalogueVersion.incrementAndGet();
+    }
+
+    // --- ETag for a catalogue listing: same request + same catalogue version = same body ---
+    public String catalogueETag(String requestKey) {
+        return contentHash(catalogueEpoch + "|" + catalogueVersion.get() + "|" + requestKey);
+    }
+
+    private static String contentHash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     // --- Create or update a product ---
     public Product saveProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(saved));
+        return saved;
     }
 
-    // --- Get all products ---
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    // --- Ranked keyword search served from the in-memory index ---
+    // Only the requested page is loaded from the database, by primary key
+    public ProductPage<Product> searchProducts(String keyword, boolean activeOnly, String cursor, Integer limit) {
+        int offset = decodeSearchCursor(cursor);
+        int size = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        ProductSearchIndex.SearchHits hits = productSearchIndex.search(keyword, activeOnly, offset, size);
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product p : productRepository.findAllById(hits.productIds())) {
+            byId.put(p.getProductId(), p);
+        }
+        List<Product> products = new ArrayList<>(hits.productIds().size());
+        for (Long id : hits.productIds()) {
+            Product p = byId.get(id);
+            if (p != null) {
+                products.add(p);
+            }
+        }
+
+        int next = offset + hits.productIds().size();
+        String nextCursor = next < hits.total() ? encodeSearchCursor(next) : null;
+        return new ProductPage<>(products, nextCursor, (long) hits.total());
+    }
+
+    // --- Keyset-paginated catalogue listing ---
+    public ProductPage<Product> getProductPage(ProductCatalogueRepository.Filter filter,
+                                               String sort, String cursor, Integer limit, boolean withCount) {
+        ProductCatalogueRepository.Sort order = parseSort(sort);
+        ProductCatalogueRepository.Cursor after = parseCursor(cursor, order);
+        int size = pageSize(limit);
+
+        // Fetch one extra row to learn whether another page exists without a count query
+        List<Product> rows = productRepository.findCataloguePage(filter, order, after, size + 1);
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = new ArrayList<>(rows.subList(0, size));
+            nextCursor = ProductCatalogueRepository.Cursor.of(order, rows.get(size - 1)).encode();
+        }
+        Long total = withCount ? productRepository.countCatalogue(filter) : null;
+        return new ProductPage<>(rows, nextCursor, total);
     }
 
     // --- Get product summaries with first image and lowest price ---
-    public List<ProductSummaryDto> getProductSummaries() {
-        return productRepository.findAll()
-                .stream()
-                .map(this::mapToSummary)
-                .collect(Collectors.toList());
+    // Fixed three queries per page regardless of catalogue size: listing columns, grouped min price, first image
+    public ProductPage<ProductSummaryDto> getProductSummaryPage(ProductCatalogueRepository.Filter filter,
+                                                               String sort, String cursor, Integer limit, boolean withCount) {
+        ProductCatalogueRepository.Sort order = parseSort(sort);
+        ProductCatalogueRepository.Cursor after = parseCursor(cursor, order);
+        int size = pageSize(limit);
+
+        List<ProductCatalogueRepository.SummaryRow> rows = productRepository.findCatalogueSummaryPage(filter, order, after, size + 1);
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = ProductCatalogueRepository.Cursor.of(order, rows.get(size - 1)).encode();
+        }
+        Long total = withCount ? productRepository.countCatalogue(filter) : null;
+        return new ProductPage<>(summarizeRows(rows), nextCursor, total);
+    }
+
+    private static ProductCatalogueRepository.Sort parseSort(String sort) {
+        try {
+            return ProductCatalogueRepository.Sort.parse(sort);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
+    private static ProductCatalogueRepository.Cursor parseCursor(String cursor, ProductCatalogueRepository.Sort order) {
+        try {
+            return cursor == null || cursor.isBlank() ? null : ProductCatalogueRepository.Cursor.decode(cursor, order);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
+    private int pageSize(Integer limit) {
+        return limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+    }
+
+    // --- Faceted filtering: matching products plus per-facet counts ---
+    public Map<String, Object> getFacetedProducts(ProductFacetIndex.Query query, String cursor, Integer limit) {
+        int offset = decodeSearchCursor(cursor);
+        int size = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        ProductFacetIndex.Result result = productFacetIndex.query(query, offset, size);
+        List<Product> products = new ArrayList<>(productRepository.findAllById(result.productIds()));
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < result.productIds().size(); i++) {
+            rank.put(result.productIds().get(i), i);
+        }
+        products.sort(Comparator.comparing(p -> rank.get(p.getProductId())));
+
+        int next = offset + result.productIds().size();
+        Map<String, Object> response = new HashMap<>();
+        response.put("products", summarize(products));
+        response.put("total", result.total());
+        response.put("nextCursor", next < result.total() ? encodeSearchCursor(next) : null);
+        response.put("facets", result.facets());
+        return response;
+    }
+
+    // Summaries for a page of products: two batched queries for price and image, stitched in memory
+    private List<ProductSummaryDto> summarize(List<Product> products) {
+        return summarizeRows(products.stream().map(ProductCatalogueRepository.SummaryRow::of).toList());
+    }
+
+    private List<ProductSummaryDto> summarizeRows(List<ProductCatalogueRepository.SummaryRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = rows.stream().map(ProductCatalogueRepository.SummaryRow::productId).collect(Collectors.toList());
+
+        Map<Long, BigDecimal> minPrices = new HashMap<>();
+        for (ProductVariantRepository.MinPrice mp : productVariantRepository.findMinPriceByProductIds(ids)) {
+            minPrices.put(mp.getProductId(), mp.getPrice());
+        }
+
+        Map<Long, String> firstImages = new HashMap<>();
+        for (ProductImageRepository.FirstImage fi : productImageRepository.findFirstImageByProductIds(ids)) {
+            firstImages.putIfAbsent(fi.getProductId(), ImageRenditionService.pick(summaryImageSize,
+                    fi.getImageUrl(), fi.getThumbUrl(), fi.getCardUrl(), fi.getDetailUrl()));
+        }
+
+        List<ProductSummaryDto> summaries = new ArrayList<>(rows.size());
+        for (ProductCatalogueRepository.SummaryRow row : rows) {
+            summaries.add(toSummary(row, minPrices.get(row.productId()), firstImages.get(row.productId())));
+        }
+        return summaries;
     }
 
     // --- Get product by ID ---
@@ -62,36 +287,14 @@ public class ProductService {
         productRepository.findById(id).ifPresent(product -> {
             product.setActive(false);
             product.setUpdatedAt(java.time.LocalDateTime.now());
-            productRepository.save(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(productRepository.save(product)));
         });
     }
 
-    // --- Get products by category ---
-    public List<Product> getProductsByCategory(Long categoryId) {
-        return productRepository.findByCategoryId(categoryId);
-    }
-
-    // --- Search products by keyword ---
-    public List<Product> searchProducts(String keyword) {
-        if (keyword == null || keyword.trim().isEmpty()) {
-            return getAllProducts();
-        }
-        return productRepository.searchByKeyword(keyword.trim());
-    }
-
-    // --- Get active products only ---
-    public List<Product> getActiveProducts() {
-        return productRepository.findByIsActiveTrue();
-    }
-
-    // --- Get active products by category ---
-    public List<Product> getActiveProductsByCategory(Long categoryId) {
-        return productRepository.findByCategoryIdAndActiveTrue(categoryId);
-    }
-
     // --- Get product detail by ID ---
-    public Optional<Map<String, Object>> getProductDetail(Long productId) {
-        return productRepository.findById(productId).map(this::mapToDetail);
+    // Served from the detail cache; writes to the product, its variants or images evict it
+    public Optional<ProductDetail> getProductDetail(Long productId) {
+        return Optional.ofNullable(detailCache.get(productId));
     }
 
     private Map<String, Object> mapToDetail(Product product) {
@@ -113,17 +316,15 @@ public class ProductService {
             .reduce(0L, Long::sum);
         Long stock = (productStock != null && productStock > 0) ? productStock : variantStockSum;
 
-        System.out.println("=== PRODUCT DETAIL STOCK CALCULATION ===");
-        System.out.println("ProductId: " + product.getProductId());
-        System.out.println("Product.stock: " + productStock);
-        System.out.println("VariantStock sum: " + variantStockSum);
-        System.out.println("Final stock used: " + stock);
+        log.debug("Detail stock for product {}: product={}, variantSum={}, used={}",
+                product.getProductId(), productStock, variantStockSum, stock);
 
         // Get all images ordered by display order
         List<ProductImage> images = productImageRepository.findByProductIdOrderByDisplayOrder(product.getProductId());
         List<String> imageUrls = new ArrayList<>(
             images.stream()
-                .map(ProductImage::getImageUrl)
+                .map(i -> ImageRenditionService.pick(detailImageSize,
+                        i.getImageUrl(), i.getThumbUrl(), i.getCardUrl(), i.getDetailUrl()))
                 .map(this::normalizeImageUrl)
                 .collect(Collectors.toList())
         );
@@ -155,7 +356,8 @@ public class ProductService {
         detail.put("imageUrls", imageUrls);
         detail.put("category", category);
         detail.put("variants", variantInfos);
-        return detail;
+        // Shared by every reader of the cache
+        return Collections.unmodifiableMap(detail);
     }
 
     private String normalizeImageUrl(String imageUrl) {
@@ -170,54 +372,44 @@ public class ProductService {
         return imageUrl;
     }
 
-    private ProductSummaryDto mapToSummary(Product product) {
-        // Get lowest price among variants, if any
-        List<ProductVariant> variants = productVariantRepository.findByProductId(product.getProductId());
-        BigDecimal price = variants.stream()
-                .map(ProductVariant::getPrice)
-                .filter(p -> p != null)
-                .min(Comparator.naturalOrder())
-                .orElse(null);
-
-        // Get first image by display order, if any
-        List<ProductImage> images = productImageRepository.findByProductIdOrderByDisplayOrder(product.getProductId());
-        String imageUrl = images.stream()
-                .map(ProductImage::getImageUrl)
-                .findFirst()
-                .orElse("https://via.placeholder.com/400x400?text=No+Image");
+    // Search and facet results are ranked rather than keyed, so their cursor is an opaque offset
+    private String encodeSearchCursor(int offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("SEARCH|" + offset).getBytes(StandardCharsets.UTF_8));
+    }
 
-        // Normalize image URL to point to Spring static folder when a bare filename is stored
-        if (imageUrl != null && !imageUrl.isBlank()) {
-            boolean isAbsolute = imageUrl.startsWith("http://") || imageUrl.startsWith("https://");
-            boolean isStaticPath = imageUrl.startsWith("/images/");
-            if (!isAbsolute && !isStaticPath) {
-                // If it already starts with '/', keep it; otherwise prefix with '/images/'
-                imageUrl = imageUrl.startsWith("/") ? imageUrl : "/images/" + imageUrl;
-            }
+    private int decodeSearchCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
         }
-
-        // Seller metadata (store name and owning customer) for ownership checks on the client
-        Long sellerId = null;
-        Long sellerCustomerId = null;
-        String sellerStoreName = null;
-        if (product.getSeller() != null) {
-            sellerId = product.getSeller().getSellerId();
-            sellerStoreName = product.getSeller().getStoreName();
-            if (product.getSeller().getCustomer() != null) {
-                sellerCustomerId = product.getSeller().getCustomer().getCustomerId();
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith("SEARCH|")) {
+                throw new IllegalArgumentException();
             }
+            return Math.max(0, Integer.parseInt(raw.substring("SEARCH|".length())));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
         }
+    }
 
+    private ProductSummaryDto toSummary(ProductCatalogueRepository.SummaryRow row, BigDecimal price, String imageUrl) {
+        // Normalize image URL to point to Spring static folder when a bare filename is stored
+        String url = imageUrl != null
+                ? normalizeImageUrl(imageUrl)
+                : "https://via.placeholder.com/400x400?text=No+Image";
+
+        // Seller metadata (store name and owning customer) for ownership checks on the client
         return new ProductSummaryDto(
-                product.getProductId(),
-                product.getName(),
-                product.getDescription(),
+                row.productId(),
+                row.name(),
+                row.description(),
                 price,
-                imageUrl,
-                sellerId,
-                sellerCustomerId,
-                sellerStoreName,
-                product.getProductCode()
+                url,
+                row.sellerId(),
+                row.sellerCustomerId(),
+                row.sellerStoreName(),
+                row.productCode()
         );
     }
 }
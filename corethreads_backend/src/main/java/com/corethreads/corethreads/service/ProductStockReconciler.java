@@ -0,0 +1,90 @@
+package com.corethreads.corethreads.service;
+
+import com.corethreads.corethreads.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps Product.stock equal to the sum of its variants without re-summing on the hot path.
+ * Checkout adjusts the product by the same delta it takes off the variants; any other write
+ * (seller edits, variant CRUD) only flags the product dirty, and this job re-derives just those
+ * products in one bulk UPDATE per batch.
+ */
+@Component
+public class ProductStockReconciler {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    public ProductStockReconciler(ProductRepository productRepository, TransactionTemplate transactionTemplate) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void markDirty(Long productId) {
+        if (productId != null) {
+            dirty.add(productId);
+        }
+    }
+
+    // After commit, so the rescan cannot read the variants before the write is visible
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.product() != null) {
+            markDirty(event.product().getProductId());
+        }
+    }
+
+    // Nothing is tracked across restarts, so start from a full reconcile
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileAll() {
+        transactionTemplate.executeWithoutResult(status -> productRepository.syncAllStockFromVariants());
+    }
+
+    // Re-derive the given products now; returns how many rows were updated
+    public int reconcile(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        Integer updated = transactionTemplate.execute(status -> productRepository.syncStockFromVariants(productIds));
+        return updated != null ? updated : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${catalogue.stock.reconcile-interval-ms:5000}")
+    public int reconcileDirty() {
+        int reconciled = 0;
+        List<Long> batch = new ArrayList<>(BATCH_SIZE);
+        Iterator<Long> it = dirty.iterator();
+        while (it.hasNext()) {
+            batch.add(it.next());
+            // Removed before the rescan, so a write landing meanwhile re-flags the product
+            it.remove();
+            if (batch.size() == BATCH_SIZE || !it.hasNext()) {
+                List<Long> ids = List.copyOf(batch);
+                try {
+                    reconcile(ids);
+                } catch (RuntimeException ex) {
+                    dirty.addAll(ids);
+                    throw ex;
+                }
+                reconciled += ids.size();
+                batch.clear();
+            }
+        }
+        return reconciled;
+    }
+}
@@ -2,6 +2,7 @@ package com.corethreads.corethreads.service;
 
 import com.corethreads.corethreads.entity.ProductVariant;
 import com.corethreads.corethreads.repository.ProductVariantRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -11,14 +12,21 @@ import java.util.Optional;
 public class ProductVariantService {
 
     private final ProductVariantRepository variantRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ProductVariantService(ProductVariantRepository variantRepository) {
+    public ProductVariantService(ProductVariantRepository variantRepository,
+                                 ApplicationEventPublisher eventPublisher) {
         this.variantRepository = variantRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // --- Create or update a variant ---
     public ProductVariant saveVariant(ProductVariant variant) {
-        return variantRepository.save(variant);
+        ProductVariant saved = variantRepository.save(variant);
+        if (saved.getProduct() != null) {
+            eventPublisher.publishEvent(new ProductChangedEvent(saved.getProduct()));
+        }
+        return saved;
     }
 
     // --- Get all variants ---
@@ -38,6 +46,11 @@ public class ProductVariantService {
 
     // --- Delete variant ---
     public void deleteVariant(Long id) {
-        variantRepository.deleteById(id);
+        variantRepository.findById(id).ifPresent(variant -> {
+            variantRepository.delete(variant);
+            if (variant.getProduct() != null) {
+                eventPublisher.publishEvent(new ProductChangedEvent(variant.getProduct()));
+            }
+        });
     }
 }
\ No newline at end of file
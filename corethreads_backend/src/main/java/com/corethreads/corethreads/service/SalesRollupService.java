@@ -0,0 +1,114 @@
+package com.corethreads.corethreads.service;
+
+import com.corethreads.corethreads.entity.OrderItem;
+import com.corethreads.corethreads.entity.Product;
+import com.corethreads.corethreads.entity.SellerDailySales;
+import com.corethreads.corethreads.repository.SellerDailySalesRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Daily sales per seller and product, maintained incrementally at checkout so seller analytics
+ * read a handful of pre-aggregated rows instead of scanning orders and order items.
+ */
+@Service
+public class SalesRollupService {
+
+    @Autowired
+    private SellerDailySalesRepository rollupRepository;
+
+    @Value("${analytics.rollup.max-range-days:400}")
+    private int maxRangeDays;
+
+    @Value("${analytics.rollup.total-slots:16}")
+    private int totalSlots;
+
+    public static record DailySales(LocalDate date, long units, BigDecimal revenue, long orderCount) {}
+    public static record ProductSales(Long productId, long units, BigDecimal revenue, long orderCount) {}
+
+    private record Key(long sellerId, long productId) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key o) {
+            int c = Long.compare(sellerId, o.sellerId);
+            return c != 0 ? c : Long.compare(productId, o.productId);
+        }
+    }
+
+    /**
+     * Adds a placed order's items to the day's rollups. Must run inside the checkout transaction.
+     * Rows are touched in (seller, product) order, so concurrent checkouts lock them in the same order.
+     * The seller's day total goes to one random slot row, so checkouts for different products of a
+     * busy seller do not all queue on a single total row.
+     */
+    public void recordOrder(LocalDate day, List<OrderItem> items) {
+        Map<Key, long[]> units = new TreeMap<>();
+        Map<Key, BigDecimal> revenue = new TreeMap<>();
+        Map<Long, Long> slotBySeller = new HashMap<>();
+        for (OrderItem oi : items) {
+            Product product = oi.getVariant().getProduct();
+            if (product.getSeller() == null) {
+                continue;
+            }
+            long sellerId = product.getSeller().getSellerId();
+            // One slot per seller per order, so the order is counted once in the day's total
+            long slot = slotBySeller.computeIfAbsent(sellerId,
+                    k -> SellerDailySales.totalSlot(ThreadLocalRandom.current().nextInt(Math.max(1, totalSlots))));
+            BigDecimal subtotal = oi.getSubtotal() != null ? oi.getSubtotal() : BigDecimal.ZERO;
+            for (Key key : List.of(new Key(sellerId, product.getProductId()), new Key(sellerId, slot))) {
+                units.computeIfAbsent(key, k -> new long[1])[0] += oi.getQuantity();
+                revenue.merge(key, subtotal, BigDecimal::add);
+            }
+        }
+        for (Map.Entry<Key, long[]> e : units.entrySet()) {
+            Key key = e.getKey();
+            rollupRepository.addSales(key.sellerId(), key.productId(), day, e.getValue()[0], revenue.get(key), 1);
+        }
+    }
+
+    // --- One entry per day in [from, to], zero-filled where nothing sold ---
+    public List<DailySales> getDailySales(Long sellerId, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        Map<LocalDate, SellerDailySalesRepository.DayTotal> rows = new TreeMap<>();
+        for (SellerDailySalesRepository.DayTotal row : rollupRepository.sumDayTotals(sellerId, from, to)) {
+            rows.put(row.getSalesDate(), row);
+        }
+        List<DailySales> series = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            SellerDailySalesRepository.DayTotal row = rows.get(day);
+            series.add(row == null
+                    ? new DailySales(day, 0, BigDecimal.ZERO, 0)
+                    : new DailySales(day, row.getUnits(), row.getRevenue(), row.getOrderCount()));
+        }
+        return series;
+    }
+
+    // --- Per-product totals over [from, to], best sellers first ---
+    public List<ProductSales> getProductSales(Long sellerId, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return rollupRepository.sumByProduct(sellerId, from, to).stream()
+                .map(t -> new ProductSales(t.getProductId(), t.getUnits(), t.getRevenue(), t.getOrderCount()))
+                .toList();
+    }
+
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Range is limited to " + maxRangeDays + " days");
+        }
+    }
+}
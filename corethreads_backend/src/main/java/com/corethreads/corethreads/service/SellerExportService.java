@@ -0,0 +1,216 @@
+package com.corethreads.corethreads.service;
+
+import com.corethreads.corethreads.repository.OrderItemRepository;
+import com.corethreads.corethreads.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes a seller's orders or products as CSV or NDJSON straight from a forward-only result set.
+ * Rows are read in fetch-size chunks inside a read-only transaction and written one at a time, so
+ * memory stays flat however many rows there are. Output is flushed every few hundred rows; a slow
+ * client blocks the write, which in turn stops the cursor from reading further.
+ */
+@Service
+public class SellerExportService {
+
+    public enum Format {
+        CSV("text/csv", "csv"), NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public MediaType mediaType() {
+            return MediaType.parseMediaType(contentType);
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            if (value == null || value.isBlank()) {
+                return CSV;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {}
+
+    private static final List<Column<OrderItemRepository.SellerOrderRow>> ORDER_COLUMNS = List.of(
+            new Column<>("orderId", OrderItemRepository.SellerOrderRow::getOrderId),
+            new Column<>("orderNumber", OrderItemRepository.SellerOrderRow::getOrderNumber),
+            new Column<>("customerName", r -> r.getFirstName() + " " + r.getLastName()),
+            new Column<>("totalAmount", OrderItemRepository.SellerOrderRow::getAmount),
+            new Column<>("status", OrderItemRepository.SellerOrderRow::getStatus),
+            new Column<>("createdAt", OrderItemRepository.SellerOrderRow::getCreatedAt));
+
+    private static final List<Column<ProductRepository.ExportRow>> PRODUCT_COLUMNS = List.of(
+            new Column<>("productId", ProductRepository.ExportRow::getProductId),
+            new Column<>("productCode", ProductRepository.ExportRow::getProductCode),
+            new Column<>("name", ProductRepository.ExportRow::getName),
+            new Column<>("category", ProductRepository.ExportRow::getCategory),
+            new Column<>("price", ProductRepository.ExportRow::getPrice),
+            new Column<>("stock", ProductRepository.ExportRow::getStock),
+            new Column<>("isActive", ProductRepository.ExportRow::getActive),
+            new Column<>("createdAt", ProductRepository.ExportRow::getCreatedAt),
+            new Column<>("updatedAt", ProductRepository.ExportRow::getUpdatedAt));
+
+    private final OrderItemRepository orderItemRepository;
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter valueWriter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int flushEveryRows;
+
+    public SellerExportService(OrderItemRepository orderItemRepository,
+                               ProductRepository productRepository,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${export.flush-every-rows:500}") int flushEveryRows) {
+        this.orderItemRepository = orderItemRepository;
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        // Field values go through the application's mapper (dates etc.), without a flush per value
+        this.valueWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.flushEveryRows = Math.max(1, flushEveryRows);
+    }
+
+    public void writeOrders(Long sellerId, String status, Format format, OutputStream out) throws IOException {
+        String statusFilter = status != null && !status.isEmpty() ? status.toUpperCase() : null;
+        export(() -> orderItemRepository.streamSellerOrders(sellerId, statusFilter), ORDER_COLUMNS, format, out);
+    }
+
+    public void writeProducts(Long sellerId, Format format, OutputStream out) throws IOException {
+        export(() -> productRepository.streamForExport(sellerId), PRODUCT_COLUMNS, format, out);
+    }
+
+    private <T> void export(Supplier<Stream<T>> rows, List<Column<T>> columns,
+                            Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        try {
+            readOnlyTransaction.executeWithoutResult(tx -> {
+                try (Stream<T> stream = rows.get()) {
+                    if (format == Format.CSV) {
+                        writeCsv(stream.iterator(), columns, writer);
+                    } else {
+                        writeNdjson(stream.iterator(), columns, writer);
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            // Usually the client went away; the transaction is already closed
+            throw ex.getCause();
+        }
+        writer.flush();
+    }
+
+    private <T> void writeCsv(Iterator<T> rows, List<Column<T>> columns, Writer writer) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(columns.get(i).name());
+        }
+        writer.write("\r\n");
+        int count = 0;
+        while (rows.hasNext()) {
+            T row = rows.next();
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeCsvField(columns.get(i).value().apply(row), writer);
+            }
+            writer.write("\r\n");
+            if (++count % flushEveryRows == 0) {
+                writer.flush();
+            }
+        }
+    }
+
+    // RFC 4180: quote fields containing a separator, quote or line break; double embedded quotes.
+    // Leading =, +, -, @ are prefixed with ' so spreadsheets do not evaluate them as formulas.
+    private static void writeCsvField(Object value, Writer writer) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (value instanceof CharSequence && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private <T> void writeNdjson(Iterator<T> rows, List<Column<T>> columns, Writer writer) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setRootValueSeparator(new SerializedString("\n"));
+        int count = 0;
+        while (rows.hasNext()) {
+            T row = rows.next();
+            json.writeStartObject();
+            for (Column<T> column : columns) {
+                json.writeFieldName(column.name());
+                valueWriter.writeValue(json, column.value().apply(row));
+            }
+            json.writeEndObject();
+            if (++count % flushEveryRows == 0) {
+                json.flush();
+            }
+        }
+        if (count > 0) {
+            json.writeRaw('\n');
+        }
+        json.flush();
+    }
+}
@@ -0,0 +1,223 @@
+package com.corethreads.corethreads.service;
+
+import com.corethreads.corethreads.repository.ProductRepository;
+import com.corethreads.corethreads.repository.ProductVariantRepository;
+import com.corethreads.corethreads.repository.ProductVariantStockRepository.StockChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Bulk stock updates for a seller's variants, addressed by SKU or variant id, as absolute values
+ * or deltas. Entries for the same variant are folded in request order, then applied with one
+ * UPDATE ... CASE per chunk of variants. Each chunk is its own transaction and holds whole
+ * products, so every affected product's stock is re-derived from its variants exactly once.
+ */
+@Service
+public class StockAdjustmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockAdjustmentService.class);
+
+    // IN-list size for the SKU / id lookups
+    private static final int LOOKUP_BATCH = 1000;
+
+    public static record Adjustment(String sku, Long variantId, Long set, Long delta) {}
+    public static record AdjustmentError(int index, String sku, Long variantId, String error) {}
+    public static record AdjustmentResult(int applied, int failed, int variants, int products,
+                                          List<AdjustmentError> errors, boolean errorsTruncated) {}
+
+    // Folded change for one variant: absolute (if any entry set it) plus the deltas after that
+    private static final class Pending {
+        final Long productId;
+        Long absolute;
+        long delta;
+
+        Pending(Long productId) {
+            this.productId = productId;
+        }
+
+        StockChange toChange(Long variantId) {
+            return absolute != null
+                    ? StockChange.absolute(variantId, Math.max(0, absolute + delta))
+                    : StockChange.delta(variantId, delta);
+        }
+    }
+
+    @Autowired
+    private ProductVariantRepository productVariantRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${stock.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${stock.bulk.max-items:100000}")
+    private int maxItems;
+
+    @Value("${stock.bulk.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public AdjustmentResult apply(Long sellerId, List<Adjustment> adjustments) {
+        if (adjustments == null || adjustments.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No adjustments given");
+        }
+        if (adjustments.size() > maxItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxItems + " adjustments per request");
+        }
+        long started = System.nanoTime();
+        List<AdjustmentError> errors = new ArrayList<>();
+        int[] failed = {0};
+
+        // --- Validate and collect the keys to resolve ---
+        Set<String> skus = new LinkedHashSet<>();
+        Set<Long> ids = new LinkedHashSet<>();
+        boolean[] valid = new boolean[adjustments.size()];
+        for (int i = 0; i < adjustments.size(); i++) {
+            Adjustment a = adjustments.get(i);
+            String error = validate(a);
+            if (error != null) {
+                reject(errors, failed, i, a, error);
+                continue;
+            }
+            valid[i] = true;
+            if (a.variantId() != null) {
+                ids.add(a.variantId());
+            } else {
+                skus.add(a.sku().trim());
+            }
+        }
+
+        // --- Resolve to variants of this seller ---
+        Map<String, ProductVariantRepository.VariantRef> bySku = resolve(new ArrayList<>(skus),
+                batch -> productVariantRepository.findSellerVariantsBySku(sellerId, batch),
+                ProductVariantRepository.VariantRef::getSku);
+        Map<Long, ProductVariantRepository.VariantRef> byId = resolve(new ArrayList<>(ids),
+                batch -> productVariantRepository.findSellerVariantsById(sellerId, batch),
+                ProductVariantRepository.VariantRef::getVariantId);
+
+        // --- Fold entries per variant in request order ---
+        Map<Long, Pending> pending = new HashMap<>();
+        int applied = 0;
+        for (int i = 0; i < adjustments.size(); i++) {
+            if (!valid[i]) {
+                continue;
+            }
+            Adjustment a = adjustments.get(i);
+            ProductVariantRepository.VariantRef ref = a.variantId() != null ? byId.get(a.variantId()) : bySku.get(a.sku().trim());
+            if (ref == null) {
+                reject(errors, failed, i, a, "Variant not found");
+                continue;
+            }
+            Pending p = pending.computeIfAbsent(ref.getVariantId(), k -> new Pending(ref.getProductId()));
+            if (a.set() != null) {
+                p.absolute = a.set();
+                p.delta = 0;
+            } else {
+                p.delta += a.delta();
+            }
+            applied++;
+        }
+
+        // --- Group by product (ordered, so locks are always taken in id order) and write ---
+        Map<Long, List<StockChange>> byProduct = new TreeMap<>();
+        new TreeMap<>(pending).forEach((variantId, p) ->
+                byProduct.computeIfAbsent(p.productId, k -> new ArrayList<>()).add(p.toChange(variantId)));
+        applyByProduct(byProduct);
+
+        log.info("Seller {} bulk stock update: {} variants across {} products in {} ms",
+                sellerId, pending.size(), byProduct.size(), (System.nanoTime() - started) / 1_000_000);
+        return new AdjustmentResult(applied, failed[0], pending.size(), byProduct.size(), errors, failed[0] > errors.size());
+    }
+
+    /**
+     * Writes the given variant changes in chunks of whole products and re-derives the stock of
+     * each product once. Used by the bulk endpoint and by the seller's stock redistribution.
+     */
+    public void applyByProduct(Map<Long, List<StockChange>> changesByProduct) {
+        List<StockChange> chunk = new ArrayList<>(chunkSize);
+        List<Long> products = new ArrayList<>();
+        for (Map.Entry<Long, List<StockChange>> e : changesByProduct.entrySet()) {
+            chunk.addAll(e.getValue());
+            products.add(e.getKey());
+            if (chunk.size() >= chunkSize) {
+                write(chunk, products);
+                chunk = new ArrayList<>(chunkSize);
+                products = new ArrayList<>();
+            }
+        }
+        write(chunk, products);
+    }
+
+    private void write(List<StockChange> changes, List<Long> productIds) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            // A large product can exceed the chunk on its own; split the statement, not the transaction
+            for (int from = 0; from < changes.size(); from += chunkSize) {
+                productVariantRepository.applyStockChanges(changes.subList(from, Math.min(changes.size(), from + chunkSize)));
+            }
+            productRepository.syncStockFromVariants(productIds);
+        });
+        // Committed: cached product detail shows the old stock
+        productService.evictProductDetails(productIds);
+    }
+
+    private static String validate(Adjustment a) {
+        if (a == null) {
+            return "Empty entry";
+        }
+        boolean hasSku = a.sku() != null && !a.sku().isBlank();
+        if (hasSku == (a.variantId() != null)) {
+            return "Give exactly one of sku or variantId";
+        }
+        if ((a.set() == null) == (a.delta() == null)) {
+            return "Give exactly one of set or delta";
+        }
+        if (a.set() != null && a.set() < 0) {
+            return "Stock cannot be negative";
+        }
+        return null;
+    }
+
+    private void reject(List<AdjustmentError> errors, int[] failed, int index, Adjustment a, String error) {
+        failed[0]++;
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new AdjustmentError(index, a != null ? a.sku() : null, a != null ? a.variantId() : null, error));
+        }
+    }
+
+    private static <K> Map<K, ProductVariantRepository.VariantRef> resolve(
+            List<K> keys,
+            Function<List<K>, List<ProductVariantRepository.VariantRef>> lookup,
+            Function<ProductVariantRepository.VariantRef, K> keyOf) {
+        Map<K, ProductVariantRepository.VariantRef> found = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += LOOKUP_BATCH) {
+            for (ProductVariantRepository.VariantRef ref : lookup.apply(keys.subList(from, Math.min(keys.size(), from + LOOKUP_BATCH)))) {
+                found.put(keyOf.apply(ref), ref);
+            }
+        }
+        return found;
+    }
+}
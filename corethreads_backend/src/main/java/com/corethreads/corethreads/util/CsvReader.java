@@ -0,0 +1,123 @@
+package com.corethreads.corethreads.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forward-only RFC 4180 reader: comma separated, fields optionally in double quotes (which may
+ * contain commas, line breaks and doubled quotes), records ending in LF or CRLF. Reads one record
+ * at a time, so only the current record is held in memory; a record longer than the limit is
+ * rejected rather than buffered, which also bounds an unterminated quote.
+ */
+public final class CsvReader {
+
+    private final Reader in;
+    private final int maxRecordChars;
+    private final StringBuilder field = new StringBuilder();
+    private int pushback = -2;
+    private long recordNumber;
+    private boolean started;
+
+    public CsvReader(Reader in, int maxRecordChars) {
+        this.in = in;
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    /**
+     * Next record's fields, or null at end of input. Blank lines are skipped.
+     * @throws IllegalArgumentException if the record is malformed or too long
+     */
+    public List<String> next() throws IOException {
+        while (true) {
+            List<String> record = readRecord();
+            if (record == null) {
+                return null;
+            }
+            recordNumber++;
+            if (record.size() > 1 || !record.get(0).isEmpty()) {
+                return record;
+            }
+        }
+    }
+
+    // 1-based number of the record last returned, counting skipped blank lines
+    public long recordNumber() {
+        return recordNumber;
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                c = read();
+            }
+        }
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        int length = 0;
+        field.setLength(0);
+        boolean quoted = false;
+        boolean afterQuote = false;
+        while (true) {
+            if (++length > maxRecordChars) {
+                throw new IllegalArgumentException("Record " + (recordNumber + 1) + " exceeds " + maxRecordChars + " characters");
+            }
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Unterminated quoted field in record " + (recordNumber + 1));
+                }
+                if (c == '"') {
+                    int peek = read();
+                    if (peek == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        afterQuote = true;
+                        unread(peek);
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                afterQuote = false;
+            } else if (c == '\n' || c == -1) {
+                break;
+            } else if (c == '\r') {
+                int peek = read();
+                if (peek != '\n') {
+                    unread(peek);
+                }
+                break;
+            } else if (c == '"' && field.length() == 0 && !afterQuote) {
+                quoted = true;
+            } else if (afterQuote) {
+                throw new IllegalArgumentException("Unexpected character after closing quote in record " + (recordNumber + 1));
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private int read() throws IOException {
+        if (pushback != -2) {
+            int c = pushback;
+            pushback = -2;
+            return c;
+        }
+        return in.read();
+    }
+
+    private void unread(int c) {
+        pushback = c;
+    }
+}
@@ -1,5 +1,6 @@
 package com.corethreads.corethreads.util;
 
+import java.util.Map;
 import java.util.regex.Pattern;
 
 /**
@@ -12,10 +13,48 @@ public class InputValidator {
     private static final Pattern USERNAME_PATTERN = Pattern.compile("^[a-zA-Z0-9_]{3,20}$");
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
     private static final Pattern SAFE_TEXT_PATTERN = Pattern.compile("^[a-zA-Z0-9\\s.,!?'-]*$");
-    private static final Pattern SQL_INJECTION_PATTERN = Pattern.compile(
-            "('|(\\-\\-)|(;)|(\\||\\|)|(\\*)|xp_|sp_|exec|execute|select|insert|update|delete|drop|create|alter)" ,
-            Pattern.CASE_INSENSITIVE
-    );
+
+    // Product name clean-up steps, applied in this order by sanitizeProductName
+    private static final Pattern CONTROL_CHARS = Pattern.compile("[\\u0000-\\u001F\\u007F]");
+    private static final Pattern NAME_META_CHARS = Pattern.compile("[<>`\"'=\\\\]");
+    private static final Pattern REPEATED_DASHES = Pattern.compile("-{2,}");
+    private static final Pattern REPEATED_SLASHES = Pattern.compile("/{2,}");
+    private static final Pattern REPEATED_SPACES = Pattern.compile("\\s{2,}");
+    private static final Pattern NAME_DISALLOWED = Pattern.compile("[^A-Za-z0-9 .&()'\\-/#\\+,]");
+
+    // Pattern groups in the shared screening automaton
+    private static final int SQL = 1;
+    private static final int XSS = 2;
+    private static final int QUERY_STRING = 4;
+
+    // One automaton for every screen; each pattern lists the screens it belongs to
+    private static final MultiPatternMatcher INJECTION_PATTERNS = new MultiPatternMatcher(Map.ofEntries(
+            Map.entry("'", SQL | QUERY_STRING),
+            Map.entry("--", SQL | QUERY_STRING),
+            Map.entry(";", SQL | QUERY_STRING),
+            Map.entry("|", SQL),
+            Map.entry("*", SQL),
+            Map.entry("xp_", SQL),
+            Map.entry("sp_", SQL),
+            Map.entry("exec", SQL | QUERY_STRING),
+            Map.entry("select", SQL | QUERY_STRING),
+            Map.entry("insert", SQL | QUERY_STRING),
+            Map.entry("update", SQL),
+            Map.entry("delete", SQL | QUERY_STRING),
+            Map.entry("drop", SQL | QUERY_STRING),
+            Map.entry("create", SQL),
+            Map.entry("alter", SQL),
+            Map.entry("union", QUERY_STRING),
+            Map.entry("<script", XSS | QUERY_STRING),
+            Map.entry("javascript:", XSS | QUERY_STRING),
+            Map.entry("onerror=", XSS | QUERY_STRING),
+            Map.entry("onclick=", XSS | QUERY_STRING),
+            Map.entry("onload=", XSS),
+            Map.entry("onmouseover=", XSS),
+            Map.entry("<iframe", XSS),
+            Map.entry("<object", XSS),
+            Map.entry("<embed", XSS)
+    ));
 
     private static final int MAX_USERNAME_LENGTH = 20;
     private static final int MAX_PASSWORD_LENGTH = 128;
@@ -137,7 +176,7 @@ public class InputValidator {
             return false;
         }
 
-        return SQL_INJECTION_PATTERN.matcher(input).find();
+        return INJECTION_PATTERNS.matches(input, SQL);
     }
 
     /**
@@ -150,18 +189,17 @@ public class InputValidator {
             return false;
         }
 
-        String lowerInput = input.toLowerCase();
+        return INJECTION_PATTERNS.matches(input, XSS);
+    }
 
-        // Check for common XSS patterns
-        return lowerInput.contains("<script") ||
-               lowerInput.contains("javascript:") ||
-               lowerInput.contains("onerror=") ||
-               lowerInput.contains("onload=") ||
-               lowerInput.contains("onclick=") ||
-               lowerInput.contains("onmouseover=") ||
-               lowerInput.contains("<iframe") ||
-               lowerInput.contains("<object") ||
-               lowerInput.contains("<embed");
+    /**
+     * Screens a raw query string for common SQL and script injection fragments
+     * (used by the input validation filter on every request)
+     * @param queryString Query string, may be null
+     * @return true if a suspicious fragment is present
+     */
+    public static boolean containsSuspiciousQuery(String queryString) {
+        return INJECTION_PATTERNS.matches(queryString, QUERY_STRING);
     }
 
     /**
@@ -184,6 +222,28 @@ public class InputValidator {
         return sanitizeText(input, maxLength);
     }
 
+    /**
+     * Sanitizes a product name: strips control and markup characters, collapses repeated
+     * dashes, slashes and spaces, keeps only A-Z a-z 0-9 space . , & ( ) - / # + and caps it at 100 chars
+     * @param raw Product name as entered
+     * @return Sanitized name, or null if nothing usable remains
+     */
+    public static String sanitizeProductName(String raw) {
+        if (raw == null || raw.trim().isEmpty()) {
+            return null;
+        }
+        String v = CONTROL_CHARS.matcher(raw).replaceAll("");
+        v = NAME_META_CHARS.matcher(v).replaceAll("");
+        v = REPEATED_DASHES.matcher(v).replaceAll("-");
+        v = REPEATED_SLASHES.matcher(v).replaceAll("/");
+        v = REPEATED_SPACES.matcher(v).replaceAll(" ").trim();
+        v = NAME_DISALLOWED.matcher(v).replaceAll("");
+        if (v.length() > 100) {
+            v = v.substring(0, 100);
+        }
+        return v.isEmpty() ? null : v;
+    }
+
     /**
      * Validates and sanitizes search queries
      * @param query Search query from user
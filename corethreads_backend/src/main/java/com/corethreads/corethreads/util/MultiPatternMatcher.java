@@ -0,0 +1,117 @@
+package com.corethreads.corethreads.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick automaton over ASCII, matched case-insensitively. Each pattern carries a group
+ * bitmask so several screens (SQL, XSS, query string) share one automaton and one pass: a scan
+ * reports whether any pattern from the requested groups occurs. The goto/failure structure is
+ * flattened into a full transition table at build time, so scanning is one array lookup per
+ * character and allocates nothing.
+ */
+public final class MultiPatternMatcher {
+
+    private static final int ALPHABET = 128;
+    private static final int SHIFT = 7;
+
+    // next[row + c] is the row of the next state, pre-multiplied (row = state << SHIFT);
+    // non-ASCII input falls back to the root
+    private final int[] next;
+    // Union of the groups of every pattern ending in this state (including via failure links)
+    private final int[] groups;
+
+    /**
+     * @param patternGroups pattern -> group bitmask; patterns must be non-empty ASCII
+     */
+    public MultiPatternMatcher(Map<String, Integer> patternGroups) {
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> out = new ArrayList<>();
+        trie.add(newRow());
+        out.add(0);
+
+        for (Map.Entry<String, Integer> e : patternGroups.entrySet()) {
+            String pattern = e.getKey();
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Empty pattern");
+            }
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int c = fold(pattern.charAt(i));
+                if (c >= ALPHABET) {
+                    throw new IllegalArgumentException("Non-ASCII pattern: " + pattern);
+                }
+                if (trie.get(state)[c] == 0) {
+                    trie.get(state)[c] = trie.size();
+                    trie.add(newRow());
+                    out.add(0);
+                }
+                state = trie.get(state)[c];
+            }
+            out.set(state, out.get(state) | e.getValue());
+        }
+
+        // Breadth-first: a state's failure target is always shallower, so it is complete when used
+        int states = trie.size();
+        int[] fail = new int[states];
+        this.next = new int[states << SHIFT];
+        this.groups = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int child = trie.get(0)[c];
+            next[c] = child;
+            if (child != 0) {
+                queue.add(child);
+            }
+        }
+        groups[0] = out.get(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            groups[state] = out.get(state) | groups[fail[state]];
+            for (int c = 0; c < ALPHABET; c++) {
+                int child = trie.get(state)[c];
+                if (child != 0) {
+                    fail[child] = next[(fail[state] << SHIFT) + c];
+                    next[(state << SHIFT) + c] = child;
+                    queue.add(child);
+                } else {
+                    next[(state << SHIFT) + c] = next[(fail[state] << SHIFT) + c];
+                }
+            }
+        }
+        for (int i = 0; i < next.length; i++) {
+            next[i] <<= SHIFT;
+        }
+    }
+
+    /**
+     * True if the input contains a pattern belonging to any of the given groups.
+     * Stops at the first such match.
+     */
+    public boolean matches(CharSequence input, int groupMask) {
+        if (input == null) {
+            return false;
+        }
+        int[] next = this.next;
+        int[] groups = this.groups;
+        int row = 0;
+        for (int i = 0, n = input.length(); i < n; i++) {
+            int c = fold(input.charAt(i));
+            row = c < ALPHABET ? next[row + c] : 0;
+            if ((groups[row >>> SHIFT] & groupMask) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int fold(char c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    private static int[] newRow() {
+        return new int[ALPHABET];
+    }
+}
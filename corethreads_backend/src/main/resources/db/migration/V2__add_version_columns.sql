@@ -0,0 +1,18 @@
+-- =====================================================
+-- CoreThreads Database Migration
+-- Optimistic locking for customer balance and variant stock
+-- =====================================================
+
+-- Hibernate increments these on every entity update and rejects
+-- a write whose version no longer matches the row
+ALTER TABLE customer
+ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE product_variant
+ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- =====================================================
+-- Rollback Script (if needed)
+-- =====================================================
+-- ALTER TABLE customer DROP COLUMN version;
+-- ALTER TABLE product_variant DROP COLUMN version;
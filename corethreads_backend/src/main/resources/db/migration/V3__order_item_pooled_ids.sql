@@ -0,0 +1,21 @@
+-- =====================================================
+-- CoreThreads Database Migration
+-- Pooled id generator for OrderItem (enables JDBC insert batching)
+-- =====================================================
+
+-- MySQL has no sequences, so Hibernate keeps the counter in a one-row table.
+-- Run this BEFORE starting the app on an existing database. Hibernate's pooled
+-- optimizer reads next_val as the TOP of a block of allocationSize (50) ids and
+-- hands out next_val - 49 .. next_val, so the seed is MAX + 50: the first new id
+-- is then MAX + 1, clear of rows created by AUTO_INCREMENT.
+CREATE TABLE order_item_seq (
+    next_val BIGINT
+);
+
+INSERT INTO order_item_seq (next_val)
+SELECT COALESCE(MAX(order_item_id), 0) + 50 FROM order_item;
+
+-- =====================================================
+-- Rollback Script (if needed)
+-- =====================================================
+-- DROP TABLE order_item_seq;
@@ -0,0 +1,16 @@
+-- =====================================================
+-- CoreThreads Database Migration
+-- Resized renditions for product images
+-- =====================================================
+
+-- Filled in by the background rendition job after an upload;
+-- NULL means "not generated yet" and readers fall back to image_url
+ALTER TABLE product_image
+ADD COLUMN thumb_url VARCHAR(255) NULL,
+ADD COLUMN card_url VARCHAR(255) NULL,
+ADD COLUMN detail_url VARCHAR(255) NULL;
+
+-- =====================================================
+-- Rollback Script (if needed)
+-- =====================================================
+-- ALTER TABLE product_image DROP COLUMN thumb_url, DROP COLUMN card_url, DROP COLUMN detail_url;
@@ -0,0 +1,43 @@
+-- =====================================================
+-- CoreThreads Database Migration
+-- Daily sales rollups per seller and product
+-- =====================================================
+
+-- Maintained by the checkout transaction. The seller's total for the day is
+-- spread over slot rows with product_id -1, -2, ... (analytics.rollup.total-slots);
+-- each order adds to one slot, so summing the slots' order_count counts distinct orders.
+CREATE TABLE seller_daily_sales (
+    rollup_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    seller_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    sales_date DATE NOT NULL,
+    units BIGINT NOT NULL,
+    revenue DECIMAL(14,2) NOT NULL,
+    order_count BIGINT NOT NULL,
+    CONSTRAINT uk_seller_daily_sales UNIQUE (seller_id, product_id, sales_date)
+);
+
+-- Backfill from existing orders. Run once, BEFORE the app takes new checkouts.
+INSERT INTO seller_daily_sales (seller_id, product_id, sales_date, units, revenue, order_count)
+SELECT p.seller_id, p.product_id, DATE(o.created_at), SUM(oi.quantity), SUM(oi.subtotal), COUNT(DISTINCT o.order_id)
+FROM order_item oi
+JOIN `order` o ON o.order_id = oi.order_id
+JOIN product_variant v ON v.variant_id = oi.variant_id
+JOIN product p ON p.product_id = v.product_id
+WHERE p.seller_id IS NOT NULL
+GROUP BY p.seller_id, p.product_id, DATE(o.created_at);
+
+-- Backfilled day totals all go to the first slot (product_id -1); new checkouts spread over the rest
+INSERT INTO seller_daily_sales (seller_id, product_id, sales_date, units, revenue, order_count)
+SELECT p.seller_id, -1, DATE(o.created_at), SUM(oi.quantity), SUM(oi.subtotal), COUNT(DISTINCT o.order_id)
+FROM order_item oi
+JOIN `order` o ON o.order_id = oi.order_id
+JOIN product_variant v ON v.variant_id = oi.variant_id
+JOIN product p ON p.product_id = v.product_id
+WHERE p.seller_id IS NOT NULL
+GROUP BY p.seller_id, DATE(o.created_at);
+
+-- =====================================================
+-- Rollback Script (if needed)
+-- =====================================================
+-- DROP TABLE seller_daily_sales;
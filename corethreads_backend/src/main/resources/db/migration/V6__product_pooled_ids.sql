@@ -0,0 +1,37 @@
+-- =====================================================
+-- CoreThreads Database Migration
+-- Pooled id generators for product, product_variant and product_image
+-- (enables JDBC insert batching for bulk imports)
+-- =====================================================
+
+-- Same scheme as order_item_seq (V3). Run this BEFORE starting the app on an
+-- existing database. The pooled optimizer reads next_val as the top of a block
+-- of allocationSize (50) ids, so each seed is MAX + 50 and the first new id is
+-- MAX + 1, clear of rows created by AUTO_INCREMENT.
+CREATE TABLE product_seq (
+    next_val BIGINT
+);
+
+INSERT INTO product_seq (next_val)
+SELECT COALESCE(MAX(product_id), 0) + 50 FROM product;
+
+CREATE TABLE product_variant_seq (
+    next_val BIGINT
+);
+
+INSERT INTO product_variant_seq (next_val)
+SELECT COALESCE(MAX(variant_id), 0) + 50 FROM product_variant;
+
+CREATE TABLE product_image_seq (
+    next_val BIGINT
+);
+
+INSERT INTO product_image_seq (next_val)
+SELECT COALESCE(MAX(image_id), 0) + 50 FROM product_image;
+
+-- =====================================================
+-- Rollback Script (if needed)
+-- =====================================================
+-- DROP TABLE product_seq;
+-- DROP TABLE product_variant_seq;
+-- DROP TABLE product_image_seq;
@@ -0,0 +1,104 @@
+package com.corethreads.corethreads;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.PooledOptimizer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the pooled-id migrations against tables that already hold AUTO_INCREMENT rows, then draws
+ * ids through Hibernate's pooled optimizer the way the table-backed generator does on MySQL.
+ * Every new id must land above the existing maximum.
+ */
+class PooledIdSeedMigrationTest {
+
+	private static final int ALLOCATION_SIZE = 50;
+	private static final long EXISTING_MAX = 137;
+
+	@Test
+	void pooledIdsStartAfterExistingRows() throws Exception {
+		try (Connection db = DriverManager.getConnection("jdbc:h2:mem:pooled_seed;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "")) {
+			createWithRows(db, "order_item", "order_item_id");
+			createWithRows(db, "product", "product_id");
+			createWithRows(db, "product_variant", "variant_id");
+			createWithRows(db, "product_image", "image_id");
+
+			runScript(db, "V3__order_item_pooled_ids.sql");
+			runScript(db, "V6__product_pooled_ids.sql");
+
+			for (String sequence : new String[] {"order_item_seq", "product_seq", "product_variant_seq", "product_image_seq"}) {
+				PooledOptimizer optimizer = new PooledOptimizer(Long.class, ALLOCATION_SIZE);
+				// @SequenceGenerator's default initialValue, injected the same way by SequenceStyleGenerator
+				optimizer.injectInitialValue(1);
+				AccessCallback table = new TableCallback(db, sequence);
+
+				Set<Long> ids = new HashSet<>();
+				for (int i = 0; i < ALLOCATION_SIZE * 3; i++) {
+					ids.add((Long) optimizer.generate(table));
+				}
+				assertThat(ids).as(sequence).hasSize(ALLOCATION_SIZE * 3);
+				assertThat(ids.stream().mapToLong(Long::longValue).min().getAsLong()).as(sequence).isEqualTo(EXISTING_MAX + 1);
+			}
+		}
+	}
+
+	private static void createWithRows(Connection db, String table, String idColumn) throws SQLException {
+		try (Statement st = db.createStatement()) {
+			st.execute("CREATE TABLE " + table + " (" + idColumn + " BIGINT AUTO_INCREMENT PRIMARY KEY)");
+			st.execute("INSERT INTO " + table + " (" + idColumn + ") VALUES (1), (2), (" + EXISTING_MAX + ")");
+		}
+	}
+
+	private static void runScript(Connection db, String name) throws Exception {
+		String sql = Files.readAllLines(Path.of("src/main/resources/db/migration", name)).stream()
+				.filter(line -> !line.trim().startsWith("--"))
+				.collect(Collectors.joining("\n"));
+		try (Statement st = db.createStatement()) {
+			for (String statement : sql.split(";")) {
+				if (!statement.isBlank()) {
+					st.execute(statement);
+				}
+			}
+		}
+	}
+
+	// Mirrors TableStructure: read next_val, advance it by one block, hand back what was read
+	private record TableCallback(Connection db, String table) implements AccessCallback {
+
+		@Override
+		public IntegralDataTypeHolder getNextValue() {
+			try (Statement st = db.createStatement()) {
+				long value;
+				try (ResultSet rs = st.executeQuery("SELECT next_val FROM " + table)) {
+					rs.next();
+					value = rs.getLong(1);
+				}
+				st.executeUpdate("UPDATE " + table + " SET next_val = " + (value + ALLOCATION_SIZE));
+				IntegralDataTypeHolder holder = IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class);
+				holder.initialize(value);
+				return holder;
+			} catch (SQLException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+
+		@Override
+		public String getTenantIdentifier() {
+			return null;
+		}
+	}
+}
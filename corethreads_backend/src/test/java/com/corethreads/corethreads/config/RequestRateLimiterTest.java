@@ -0,0 +1,40 @@
+package com.corethreads.corethreads.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestRateLimiterTest {
+
+	private static final int LIMIT = 5;
+
+	@Test
+	void clientWithLiveBucketKeepsItsBudgetOnceKeysRunOut() {
+		RequestRateLimiter limiter = new RequestRateLimiter(new SimpleMeterRegistry(), true, 3,
+				LIMIT, 60, LIMIT, 60, LIMIT, 60);
+		RequestRateLimiter.RouteClass route = RequestRateLimiter.RouteClass.DEFAULT;
+
+		assertThat(limiter.acquire(route, from("10.0.0.1")).remaining()).isEqualTo(LIMIT - 1);
+		limiter.acquire(route, from("10.0.0.2"));
+		limiter.acquire(route, from("10.0.0.3"));
+
+		// The map is full: new addresses share one bucket, and a flood of them drains it
+		for (int i = 0; i < LIMIT; i++) {
+			assertThat(limiter.acquire(route, from("10.1.0." + i)).allowed()).isTrue();
+		}
+		assertThat(limiter.acquire(route, from("10.1.1.1")).allowed()).isFalse();
+
+		// The established client still draws from its own bucket
+		RequestRateLimiter.Decision own = limiter.acquire(route, from("10.0.0.1"));
+		assertThat(own.allowed()).isTrue();
+		assertThat(own.remaining()).isEqualTo(LIMIT - 2);
+	}
+
+	private static MockHttpServletRequest from(String address) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+		request.setRemoteAddr(address);
+		return request;
+	}
+}
@@ -0,0 +1,139 @@
+package com.corethreads.corethreads.service;
+
+import com.corethreads.corethreads.entity.Customer;
+import com.corethreads.corethreads.entity.Product;
+import com.corethreads.corethreads.entity.ProductVariant;
+import com.corethreads.corethreads.repository.CustomerRepository;
+import com.corethreads.corethreads.repository.ProductRepository;
+import com.corethreads.corethreads.repository.ProductVariantRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderServiceStockContentionTest {
+
+	private static final int BUYERS = 300;
+	private static final long STOCK = 50;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ProductVariantRepository variantRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Test
+	void concurrentBuyersNeverOversellHotSku() throws Exception {
+		Product hot = new Product("Hot Tee", "Flash sale", null, null);
+		hot.setStock(STOCK);
+		Product product = productRepository.save(hot);
+		ProductVariant variant = variantRepository.save(
+				new ProductVariant("M", "Black", "HOT-TEE-M-BLK", STOCK, new BigDecimal("10.00"), product));
+
+		List<Long> buyers = new ArrayList<>();
+		for (int i = 0; i < BUYERS; i++) {
+			Customer c = new Customer("buyer" + i, "Buyer", "No" + i, "buyer" + i + "@example.com", "x");
+			buyers.add(customerRepository.save(c).getCustomerId());
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(64);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger sold = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+		for (Long customerId : buyers) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				OrderService.CheckoutResult result = orderService.processCheckout(customerId,
+						List.of(new OrderService.CheckoutItem(product.getProductId(), "M", "Black", 1L)));
+				if (result.order() != null) {
+					sold.incrementAndGet();
+				} else {
+					rejected.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> f : futures) {
+			f.get(60, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+
+		long remaining = variantRepository.findById(variant.getVariantId()).orElseThrow().getStock();
+		assertThat(sold.get()).isEqualTo((int) STOCK);
+		assertThat(rejected.get()).isEqualTo(BUYERS - (int) STOCK);
+		assertThat(remaining).isZero();
+		assertThat(productRepository.findById(product.getProductId()).orElseThrow().getStock()).isZero();
+	}
+
+	@Test
+	void concurrentCheckoutsBySameCustomerNeverLoseABalanceUpdate() throws Exception {
+		Product sock = new Product("Sock", "Everyday", null, null);
+		sock.setStock(100L);
+		Product product = productRepository.save(sock);
+		ProductVariant variant = variantRepository.save(
+				new ProductVariant("One Size", "White", "SOCK-OS-WHT", 100L, new BigDecimal("10.00"), product));
+		Customer c = new Customer("spender", "Big", "Spender", "spender@example.com", "x");
+		c.setBalance(1000.0);
+		Long customerId = customerRepository.save(c).getCustomerId();
+
+		int attempts = 20;
+		ExecutorService pool = Executors.newFixedThreadPool(attempts);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger sold = new AtomicInteger();
+		AtomicInteger conflicts = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < attempts; i++) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				try {
+					OrderService.CheckoutResult result = orderService.processCheckout(customerId,
+							List.of(new OrderService.CheckoutItem(product.getProductId(), "One Size", "White", 1L)));
+					if (result.order() != null) {
+						sold.incrementAndGet();
+					}
+				} catch (ConcurrencyFailureException ex) {
+					conflicts.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> f : futures) {
+			f.get(60, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+
+		// Every attempt either commits or reports a conflict, and each committed order is paid for and
+		// taken from stock exactly once; how many win the race depends on scheduling, so it is not asserted
+		Customer after = customerRepository.findById(customerId).orElseThrow();
+		assertThat(sold.get() + conflicts.get()).isEqualTo(attempts);
+		assertThat(after.getBalance()).isEqualTo(1000.0 - 10.0 * sold.get());
+		long variantStock = variantRepository.findById(variant.getVariantId()).orElseThrow().getStock();
+		assertThat(variantStock).isEqualTo(100L - sold.get()).isNotNegative();
+		assertThat(productRepository.findById(product.getProductId()).orElseThrow().getStock())
+				.isEqualTo(100L - sold.get());
+	}
+}
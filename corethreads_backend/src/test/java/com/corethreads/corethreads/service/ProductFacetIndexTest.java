@@ -0,0 +1,124 @@
+package com.corethreads.corethreads.service;
+
+import com.corethreads.corethreads.entity.Product;
+import com.corethreads.corethreads.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductFacetIndexTest {
+
+	private static final String[] COLORS = {"Black", "White", "Red", null};
+	private static final String[] SIZES = {"S", "M", "L", null};
+
+	private record Row(Long productId, Boolean active, Long categoryId, String productColors, BigDecimal productPrice,
+					   String size, String color, BigDecimal price) implements ProductRepository.FacetRow {
+		public Long getProductId() { return productId; }
+		public Boolean getActive() { return active; }
+		public Long getCategoryId() { return categoryId; }
+		public String getProductColors() { return productColors; }
+		public BigDecimal getProductPrice() { return productPrice; }
+		public String getSize() { return size; }
+		public String getColor() { return color; }
+		public BigDecimal getPrice() { return price; }
+	}
+
+	// productId -> rows, ordered by id like the repository queries
+	private final Map<Long, List<Row>> catalogue = new TreeMap<>();
+	private final Random random = new Random(42);
+
+	@Test
+	void patchedIndexMatchesFullRebuild() {
+		for (long id = 1; id <= 200; id++) {
+			catalogue.put(id, randomRows(id));
+		}
+		ProductRepository repository = repositoryOver(catalogue);
+		ProductFacetIndex index = new ProductFacetIndex(repository, "0,25,50,100");
+		index.query(all(false), 0, 1000);
+
+		long nextId = 201;
+		for (int round = 0; round < 30; round++) {
+			for (int i = 0; i < 10; i++) {
+				long id;
+				if (random.nextInt(5) == 0) {
+					id = nextId++;
+				} else {
+					id = 1 + random.nextInt((int) (nextId - 1));
+				}
+				// New products, re-priced or recoloured ones, variants added, removed, deactivated
+				catalogue.put(id, randomRows(id));
+				Product changed = new Product();
+				changed.setProductId(id);
+				index.onProductChanged(new ProductChangedEvent(changed));
+			}
+
+			ProductFacetIndex fresh = new ProductFacetIndex(repositoryOver(catalogue), "0,25,50,100");
+			for (ProductFacetIndex.Query q : List.of(
+					all(false),
+					all(true),
+					new ProductFacetIndex.Query(true, Set.of(2L), null, null, null, null),
+					new ProductFacetIndex.Query(false, null, Set.of("black", "red"), Set.of("m"), null, null),
+					new ProductFacetIndex.Query(true, null, null, null, new BigDecimal("20"), new BigDecimal("60")))) {
+				assertThat(index.query(q, 0, 1000)).as("round %d, %s", round, q).isEqualTo(fresh.query(q, 0, 1000));
+			}
+		}
+
+		// Only the first query scanned the catalogue; every write after that was patched in
+		verify(repository, times(1)).findFacetRows();
+	}
+
+	private static ProductFacetIndex.Query all(boolean activeOnly) {
+		return new ProductFacetIndex.Query(activeOnly, null, null, null, null, null);
+	}
+
+	private List<Row> randomRows(long id) {
+		boolean active = random.nextInt(4) != 0;
+		Long category = random.nextInt(5) == 0 ? null : (long) (1 + random.nextInt(3));
+		BigDecimal productPrice = random.nextInt(6) == 0 ? null : BigDecimal.valueOf(5 + random.nextInt(150));
+		String productColors = random.nextBoolean() ? "Black, Blue" : null;
+		int variants = random.nextInt(4);
+		List<Row> rows = new ArrayList<>();
+		if (variants == 0) {
+			// LEFT JOIN: a product without variants still yields one row
+			rows.add(new Row(id, active, category, productColors, productPrice, null, null, null));
+		}
+		for (int v = 0; v < variants; v++) {
+			BigDecimal price = random.nextBoolean() ? BigDecimal.valueOf(5 + random.nextInt(150)) : null;
+			rows.add(new Row(id, active, category, productColors, productPrice,
+					SIZES[random.nextInt(SIZES.length)], COLORS[random.nextInt(COLORS.length)], price));
+		}
+		return rows;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ProductRepository repositoryOver(Map<Long, List<Row>> catalogue) {
+		ProductRepository repository = mock(ProductRepository.class);
+		when(repository.findFacetRows()).thenAnswer(inv -> {
+			List<ProductRepository.FacetRow> rows = new ArrayList<>();
+			catalogue.values().forEach(rows::addAll);
+			return rows;
+		});
+		when(repository.findFacetRowsByProductIds(any())).thenAnswer(inv -> {
+			List<ProductRepository.FacetRow> rows = new ArrayList<>();
+			for (Long id : ((Collection<Long>) inv.getArgument(0)).stream().sorted().toList()) {
+				rows.addAll(catalogue.getOrDefault(id, List.of()));
+			}
+			return rows;
+		});
+		return repository;
+	}
+}
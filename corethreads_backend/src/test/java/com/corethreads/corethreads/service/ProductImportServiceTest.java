@@ -0,0 +1,155 @@
+package com.corethreads.corethreads.service;
+
+import com.corethreads.corethreads.entity.Customer;
+import com.corethreads.corethreads.entity.Product;
+import com.corethreads.corethreads.entity.ProductVariant;
+import com.corethreads.corethreads.entity.Seller;
+import com.corethreads.corethreads.repository.CustomerRepository;
+import com.corethreads.corethreads.repository.ProductImageRepository;
+import com.corethreads.corethreads.repository.ProductRepository;
+import com.corethreads.corethreads.repository.ProductVariantRepository;
+import com.corethreads.corethreads.repository.SellerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Chunks of three, so one upload spans several chunks and a failed chunk is easy to arrange
+@SpringBootTest(properties = "import.chunk-size=3")
+@ActiveProfiles("test")
+@RecordApplicationEvents
+class ProductImportServiceTest {
+
+	@Autowired
+	private ProductImportService importService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ProductVariantRepository variantRepository;
+
+	@Autowired
+	private ProductImageRepository imageRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private SellerRepository sellerRepository;
+
+	@Autowired
+	private ApplicationEvents events;
+
+	@Test
+	void csvImportGroupsRowsByHandleAndIsolatesBadRows() throws Exception {
+		Seller seller = seller("csv-importer");
+		// Record 7 passes validation but its size overflows the column, failing the whole first chunk
+		String csv = "handle,name,description,price,size,color,sku,variant_stock,image_url\n"
+				+ "tee,Import Tee,Soft tee,20.00,M,Black,CSV-TEE-M,5,/images/tee.png\n"
+				+ "tee,,,,L,Black,CSV-TEE-L,7,/images/tee_back.png\n"
+				+ "cap,Import Cap,,15.00,,,,,\n"
+				+ "dup,Duplicate,,10.00,M,,CSV-TEE-M,1,\n"
+				+ "nameless,,,10.00,,,,,\n"
+				+ "big,Oversized,,10.00," + "X".repeat(300) + ",,CSV-BIG,1,\n"
+				+ "hoodie,\"Import Hoodie, Grey\",,40.00,S,Grey,CSV-HOOD-S,3,\n";
+
+		ProductImportService.ImportResult result = importService.importCsv(seller, stream(csv));
+
+		assertThat(result.imported()).isEqualTo(3);
+		assertThat(result.failed()).isEqualTo(3);
+		Map<Long, String> errors = result.errors().stream()
+				.collect(Collectors.toMap(ProductImportService.RowError::row, ProductImportService.RowError::error));
+		assertThat(errors).containsOnlyKeys(5L, 6L, 7L);
+		assertThat(errors.get(5L)).isEqualTo("Duplicate SKU: CSV-TEE-M");
+		assertThat(errors.get(6L)).isEqualTo("Product name is required");
+		assertThat(errors.get(7L)).startsWith("Could not be saved");
+
+		Map<String, Product> products = productsOf(seller);
+		assertThat(products).containsOnlyKeys("Import Tee", "Import Cap", "Import Hoodie, Grey");
+		Product tee = products.get("Import Tee");
+		assertThat(tee.getStock()).isEqualTo(12L);
+		assertThat(imageRepository.findByProductIdOrderByDisplayOrder(tee.getProductId()))
+				.extracting(i -> i.getImageUrl()).containsExactly("/images/tee.png", "/images/tee_back.png");
+		assertThat(products.get("Import Cap").getStock()).isZero();
+
+		// Rows retried after the failed chunk got fresh ids and point at their own product
+		Map<String, ProductVariant> variants = variantsOf(seller);
+		assertThat(variants).containsOnlyKeys("CSV-TEE-M", "CSV-TEE-L", "CSV-HOOD-S");
+		assertThat(variants.get("CSV-TEE-L").getProduct().getProductId()).isEqualTo(tee.getProductId());
+		assertThat(variants.get("CSV-TEE-L").getStock()).isEqualTo(7L);
+		assertThat(variants.get("CSV-HOOD-S").getPrice()).isEqualByComparingTo("40.00");
+
+		assertThat(events.stream(ProductChangedEvent.class)).hasSize(3);
+	}
+
+	@Test
+	void jsonImportRejectsTakenSkusAndBadFieldsPerRow() throws Exception {
+		Seller seller = seller("json-importer");
+		Product existing = productRepository.save(new Product("Existing", "Already listed", null, null));
+		variantRepository.save(new ProductVariant("M", "Black", "JSON-TAKEN", 1L, new BigDecimal("5.00"), existing));
+
+		String json = """
+				[
+				  {"name": "Json Tee", "price": "12.50", "images": ["/images/json.png"],
+				   "variants": [{"size": "M", "sku": "JSON-TEE-M", "stock": 4}, {"size": "L", "sku": "JSON-TEE-L", "stock": 6}]},
+				  {"name": "Taken", "price": "9.00", "variants": [{"sku": "JSON-TAKEN", "stock": 1}]},
+				  {"name": "Typo", "price": "abc"},
+				  {"name": "Wrong", "stock": "many"},
+				  {"name": "Json Cap", "price": "8.00", "stock": 3}
+				]
+				""";
+
+		ProductImportService.ImportResult result = importService.importJson(seller, stream(json));
+
+		assertThat(result.imported()).isEqualTo(2);
+		assertThat(result.failed()).isEqualTo(3);
+		Map<Long, String> errors = result.errors().stream()
+				.collect(Collectors.toMap(ProductImportService.RowError::row, ProductImportService.RowError::error));
+		assertThat(errors).containsOnlyKeys(2L, 3L, 4L);
+		assertThat(errors.get(2L)).isEqualTo("SKU already exists: JSON-TAKEN");
+		assertThat(errors.get(3L)).isEqualTo("Invalid price: abc");
+		assertThat(errors.get(4L)).startsWith("Invalid field");
+
+		Map<String, Product> products = productsOf(seller);
+		assertThat(products).containsOnlyKeys("Json Tee", "Json Cap");
+		assertThat(products.get("Json Tee").getStock()).isEqualTo(10L);
+		assertThat(products.get("Json Cap").getStock()).isEqualTo(3L);
+		assertThat(variantsOf(seller)).containsOnlyKeys("JSON-TEE-M", "JSON-TEE-L");
+		assertThat(variantRepository.findExistingSkus(java.util.List.of("JSON-TAKEN"))).hasSize(1);
+
+		assertThat(events.stream(ProductChangedEvent.class)).hasSize(2);
+	}
+
+	private Seller seller(String username) {
+		Customer customer = customerRepository.save(new Customer(username, "Bulk", "Importer", username + "@example.com", "x"));
+		return sellerRepository.save(new Seller(customer, username + " store", "Imports"));
+	}
+
+	private Map<String, Product> productsOf(Seller seller) {
+		return productRepository.findBySeller_SellerId(seller.getSellerId()).stream()
+				.collect(Collectors.toMap(Product::getName, Function.identity()));
+	}
+
+	private Map<String, ProductVariant> variantsOf(Seller seller) {
+		return variantRepository.findAll().stream()
+				.filter(v -> v.getProduct().getSeller() != null
+						&& seller.getSellerId().equals(v.getProduct().getSeller().getSellerId()))
+				.collect(Collectors.toMap(ProductVariant::getSku, Function.identity()));
+	}
+
+	private static ByteArrayInputStream stream(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+}
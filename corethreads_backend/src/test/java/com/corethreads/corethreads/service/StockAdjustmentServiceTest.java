@@ -0,0 +1,138 @@
+package com.corethreads.corethreads.service;
+
+import com.corethreads.corethreads.entity.Customer;
+import com.corethreads.corethreads.entity.Product;
+import com.corethreads.corethreads.entity.ProductVariant;
+import com.corethreads.corethreads.entity.Seller;
+import com.corethreads.corethreads.repository.CustomerRepository;
+import com.corethreads.corethreads.repository.ProductRepository;
+import com.corethreads.corethreads.repository.ProductVariantRepository;
+import com.corethreads.corethreads.repository.ProductVariantStockRepository.StockChange;
+import com.corethreads.corethreads.repository.SellerRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class StockAdjustmentServiceTest {
+
+	@Autowired
+	private StockAdjustmentService stockAdjustmentService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ProductVariantRepository variantRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private SellerRepository sellerRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void mixedSetsAndDeltasLandOnVariantsAndProducts() {
+		Seller seller = seller("stock-seller");
+		Seller other = seller("other-seller");
+		Product shirt = product("Shirt", seller);
+		Product hat = product("Hat", seller);
+		ProductVariant a = variant(shirt, "ADJ-A", 10);
+		ProductVariant b = variant(shirt, "ADJ-B", 10);
+		ProductVariant c = variant(shirt, "ADJ-C", 10);
+		ProductVariant d = variant(shirt, "ADJ-D", 3);
+		ProductVariant e = variant(hat, "ADJ-E", 5);
+		variant(product("Foreign", other), "ADJ-F", 8);
+
+		StockAdjustmentService.AdjustmentResult result = stockAdjustmentService.apply(seller.getSellerId(), List.of(
+				new StockAdjustmentService.Adjustment("ADJ-A", null, 4L, null),
+				new StockAdjustmentService.Adjustment("ADJ-B", null, null, -3L),
+				// Would go to -15: clamped at zero
+				new StockAdjustmentService.Adjustment("ADJ-C", null, null, -25L),
+				// Folded in request order: set 1, then +2
+				new StockAdjustmentService.Adjustment(null, d.getVariantId(), 1L, null),
+				new StockAdjustmentService.Adjustment("ADJ-D", null, null, 2L),
+				new StockAdjustmentService.Adjustment("ADJ-E", null, null, 5L),
+				new StockAdjustmentService.Adjustment("ADJ-F", null, null, 1L),
+				new StockAdjustmentService.Adjustment("ADJ-A", a.getVariantId(), 1L, null)));
+
+		assertThat(result.applied()).isEqualTo(6);
+		assertThat(result.failed()).isEqualTo(2);
+		assertThat(result.variants()).isEqualTo(5);
+		assertThat(result.products()).isEqualTo(2);
+		assertThat(result.errors()).extracting(StockAdjustmentService.AdjustmentError::index).containsExactlyInAnyOrder(6, 7);
+
+		assertThat(stockOf(a)).isEqualTo(4L);
+		assertThat(stockOf(b)).isEqualTo(7L);
+		assertThat(stockOf(c)).isZero();
+		assertThat(stockOf(d)).isEqualTo(3L);
+		assertThat(stockOf(e)).isEqualTo(10L);
+		assertThat(variantRepository.findById(a.getVariantId()).orElseThrow().getVersion()).isEqualTo(a.getVersion() + 1);
+		assertThat(productRepository.findById(shirt.getProductId()).orElseThrow().getStock()).isEqualTo(14L);
+		assertThat(productRepository.findById(hat.getProductId()).orElseThrow().getStock()).isEqualTo(10L);
+	}
+
+	@Test
+	void batchesOfDifferentLengthsShareOneStatement() {
+		Product product = product("Socks", seller("padding-seller"));
+		List<ProductVariant> variants = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			variants.add(variant(product, "PAD-" + i, 10));
+		}
+		Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		long missesBefore = -1;
+		for (int size : new int[] {3, 7, 12, 1}) {
+			List<StockChange> changes = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				changes.add(StockChange.delta(variants.get(i).getVariantId(), -1));
+			}
+			Integer updated = transactionTemplate.execute(status -> variantRepository.applyStockChanges(changes));
+			assertThat(updated).isEqualTo(size);
+			if (missesBefore < 0) {
+				missesBefore = stats.getQueryPlanCacheMissCount();
+			}
+		}
+
+		// All four lengths pad to the same statement: parsed once, then served from the plan cache
+		assertThat(stats.getQueryPlanCacheMissCount()).isEqualTo(missesBefore);
+		assertThat(stockOf(variants.get(0))).isEqualTo(6L);
+		assertThat(stockOf(variants.get(6))).isEqualTo(8L);
+		assertThat(stockOf(variants.get(11))).isEqualTo(9L);
+	}
+
+	private long stockOf(ProductVariant variant) {
+		return variantRepository.findById(variant.getVariantId()).orElseThrow().getStock();
+	}
+
+	private Seller seller(String username) {
+		Customer customer = customerRepository.save(new Customer(username, "Stock", "Keeper", username + "@example.com", "x"));
+		return sellerRepository.save(new Seller(customer, username + " store", "Stock"));
+	}
+
+	private Product product(String name, Seller seller) {
+		return productRepository.save(new Product(name, name, null, seller));
+	}
+
+	private ProductVariant variant(Product product, String sku, long stock) {
+		return variantRepository.save(new ProductVariant("M", "Black", sku, stock, new BigDecimal("10.00"), product));
+	}
+}
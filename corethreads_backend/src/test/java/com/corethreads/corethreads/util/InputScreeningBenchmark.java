@@ -0,0 +1,59 @@
+package com.corethreads.corethreads.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of query-string screening: the single-pass automaton against the
+ * lower-case-and-contains scans it replaced.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.corethreads.corethreads.util.InputScreeningBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputScreeningBenchmark {
+
+	@Param({
+			"category=3&sort=newest&limit=60",
+			"q=black%20hoodie&color=black&color=white&size=M&minPrice=20&maxPrice=50&cursor=eyJpZCI6MTIzNDV9",
+			"q=1%27%20union%20select%20password%20from%20customer"
+	})
+	public String queryString;
+
+	@Benchmark
+	public boolean automaton() {
+		return InputValidator.containsSuspiciousQuery(queryString);
+	}
+
+	@Benchmark
+	public boolean lowerCaseContains() {
+		String lowerInput = queryString.toLowerCase();
+		return lowerInput.contains("union") || lowerInput.contains("select") || lowerInput.contains("insert")
+				|| lowerInput.contains("delete") || lowerInput.contains("drop") || lowerInput.contains("exec")
+				|| lowerInput.contains("--") || lowerInput.contains(";") || lowerInput.contains("'")
+				|| lowerInput.contains("<script") || lowerInput.contains("javascript:")
+				|| lowerInput.contains("onerror=") || lowerInput.contains("onclick=");
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(InputScreeningBenchmark.class.getSimpleName()).build()).run();
+	}
+}
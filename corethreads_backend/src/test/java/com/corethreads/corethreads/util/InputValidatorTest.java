@@ -0,0 +1,58 @@
+package com.corethreads.corethreads.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InputValidatorTest {
+
+	@Test
+	void queryScreenFlagsInjectionFragmentsInAnyCase() {
+		assertThat(InputValidator.containsSuspiciousQuery("q=1%27%20UNION%20SELECT%20*")).isTrue();
+		assertThat(InputValidator.containsSuspiciousQuery("q=x';")).isTrue();
+		assertThat(InputValidator.containsSuspiciousQuery("redirect=JavaScript:alert(1)")).isTrue();
+		assertThat(InputValidator.containsSuspiciousQuery("q=%3CScRiPt")).isFalse();
+		assertThat(InputValidator.containsSuspiciousQuery("q=<ScRiPt>")).isTrue();
+	}
+
+	@Test
+	void queryScreenPassesOrdinaryCatalogueRequests() {
+		assertThat(InputValidator.containsSuspiciousQuery(null)).isFalse();
+		assertThat(InputValidator.containsSuspiciousQuery("category=3&sort=newest&limit=60")).isFalse();
+		assertThat(InputValidator.containsSuspiciousQuery("q=café%20hoodie&size=M&minPrice=20")).isFalse();
+		// Only the query-string group applies: update/alter/* are SQL-screen patterns
+		assertThat(InputValidator.containsSuspiciousQuery("q=alter*update")).isFalse();
+	}
+
+	@Test
+	void fieldScreensKeepTheirOwnPatternSets() {
+		assertThat(InputValidator.containsSQLInjectionAttempt("admin'--")).isTrue();
+		assertThat(InputValidator.containsSQLInjectionAttempt("x|y")).isTrue();
+		assertThat(InputValidator.containsSQLInjectionAttempt("EXEC xp_cmdshell")).isTrue();
+		assertThat(InputValidator.containsSQLInjectionAttempt("john_doe")).isFalse();
+		assertThat(InputValidator.containsSQLInjectionAttempt("union")).isFalse();
+
+		assertThat(InputValidator.containsXSSAttempt("<img src=x OnError=alert(1)>")).isTrue();
+		assertThat(InputValidator.containsXSSAttempt("<IFRAME src=x>")).isTrue();
+		assertThat(InputValidator.containsXSSAttempt("drop table")).isFalse();
+	}
+
+	@Test
+	void overlappingPatternsAreFoundThroughFailureLinks() {
+		// "exe" + "xp_" overlap; "ondrop" contains "drop" after a partial "on..." prefix
+		assertThat(InputValidator.containsSQLInjectionAttempt("exxp_")).isTrue();
+		assertThat(InputValidator.containsSuspiciousQuery("a=ondrop")).isTrue();
+		assertThat(InputValidator.containsXSSAttempt("ononload=")).isTrue();
+		assertThat(InputValidator.containsXSSAttempt("<<script")).isTrue();
+	}
+
+	@Test
+	void productNamesAreCleanedStepByStep() {
+		assertThat(InputValidator.sanitizeProductName("  Basic  Tee <b>\"v2\"</b> ")).isEqualTo("Basic Tee bv2/b");
+		assertThat(InputValidator.sanitizeProductName("Shirt -- 50% off // new")).isEqualTo("Shirt - 50 off / new");
+		assertThat(InputValidator.sanitizeProductName("O'Neill\tHoodie")).isEqualTo("ONeillHoodie");
+		assertThat(InputValidator.sanitizeProductName("ÄÖÜ")).isNull();
+		assertThat(InputValidator.sanitizeProductName("   ")).isNull();
+		assertThat(InputValidator.sanitizeProductName("x".repeat(150))).hasSize(100);
+	}
+}